@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/29 11:30
+ * Desc:
+ */
+package cn.brainpoint.febs.identify.jmh;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Run the benchmarks with the GC profiler, and save the throughput as a
+ * baseline, or compare it to a saved baseline and fail on a regression.
+ *
+ * java -cp jmh/target/benchmarks.jar cn.brainpoint.febs.identify.jmh.BenchmarkGate
+ * save|compare baseline.properties [thresholdPercent] [include]
+ *
+ * compare exits with 1 if a benchmark of the baseline lost more than
+ * thresholdPercent (default 10) of its throughput, or did not run. A loss
+ * counts only if the upper bound of the 99.9% confidence interval of the run
+ * is below the threshold too, so that a noisy host does not fail the gate.
+ */
+public class BenchmarkGate {
+
+    private static final double DEFAULT_THRESHOLD_PERCENT = 10;
+    private static final String ALLOC_NORM = "gc.alloc.rate.norm";
+    // the throughput benchmarks; the others measure latency, startup or a database.
+    private static final String DEFAULT_INCLUDE = BenchmarkGate.class.getPackage().getName()
+            + ".(Generate|Encode|Validate|Write|Decode)Benchmark";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2 || !("save".equals(args[0]) || "compare".equals(args[0]))) {
+            System.err.println("usage: save|compare <baseline.properties> [thresholdPercent] [include]");
+            System.exit(2);
+        }
+        boolean save = "save".equals(args[0]);
+        File baseline = new File(args[1]);
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+        String include = args.length > 3 ? args[3] : DEFAULT_INCLUDE;
+
+        ChainedOptionsBuilder options = new OptionsBuilder().include(include).addProfiler(GCProfiler.class)
+                .warmupIterations(3).warmupTime(TimeValue.seconds(1)).measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1)).forks(1);
+        Collection<RunResult> results = new Runner(options.build()).run();
+
+        Map<String, Double> scores = new TreeMap<>();
+        Map<String, Double> errors = new TreeMap<>();
+        System.out.println();
+        System.out.println(String.format("%-72s %14s %10s", "benchmark", "ops/us", "B/op"));
+        for (RunResult result : results) {
+            String name = result.getParams().getBenchmark();
+            double score = result.getPrimaryResult().getScore();
+            scores.put(name, score);
+            errors.put(name, result.getPrimaryResult().getScoreError());
+            System.out.println(String.format("%-72s %14.3f %10.1f", name, score, allocated(result)));
+        }
+
+        if (save) {
+            Properties properties = new Properties();
+            for (Map.Entry<String, Double> entry : scores.entrySet()) {
+                properties.setProperty(entry.getKey(), String.valueOf(entry.getValue()));
+            }
+            try (OutputStream out = new FileOutputStream(baseline)) {
+                properties.store(out, "febs-identify throughput baseline, ops/us");
+            }
+            System.out.println("baseline saved: " + baseline);
+            return;
+        }
+
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(baseline)) {
+            properties.load(in);
+        }
+        List<String> regressions = new ArrayList<>();
+        for (String name : new TreeSet<>(properties.stringPropertyNames())) {
+            double expected = Double.parseDouble(properties.getProperty(name));
+            Double actual = scores.get(name);
+            if (null == actual) {
+                // a benchmark that is not included is not compared.
+                if (name.matches(".*" + include + ".*")) {
+                    regressions.add(name + ": did not run");
+                }
+                continue;
+            }
+            double change = (actual - expected) * 100 / expected;
+            System.out.println(String.format("%-72s %+8.1f%% (+-%.3f)", name, change, errors.get(name)));
+            double error = errors.get(name);
+            if (change < -threshold && (Double.isNaN(error) || actual + error < expected * (1 - threshold / 100))) {
+                regressions.add(String.format("%s: %.3f -> %.3f ops/us (%+.1f%%)", name, expected, actual, change));
+            }
+        }
+        if (!regressions.isEmpty()) {
+            System.out.println("regressions beyond " + threshold + "%:");
+            for (String regression : regressions) {
+                System.out.println("  " + regression);
+            }
+            System.exit(1);
+        }
+        System.out.println("no regression beyond " + threshold + "%");
+    }
+
+    private static double allocated(final RunResult result) {
+        for (Map.Entry<String, Result> entry : result.getSecondaryResults().entrySet()) {
+            if (entry.getKey().endsWith(ALLOC_NORM)) {
+                return entry.getValue().getScore();
+            }
+        }
+        return Double.NaN;
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/28 14:30
+ * Desc:
+ */
+package cn.brainpoint.febs.identify.jmh;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import cn.brainpoint.febs.identify.BinaryId;
+import cn.brainpoint.febs.identify.IdDecoder;
+import cn.brainpoint.febs.identify.Identify;
+
+/**
+ * The columnar IdDecoder on Strings, bytes and a direct buffer, next to
+ * decoding one BinaryId per String; the scores are per id, run with -prof gc
+ * for the bytes allocated per id.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(1)
+public class DecodeBenchmark {
+
+    private static final int IDS = 1024;
+    private static final int LENGTH = 20;
+
+    private String[] strings;
+    private byte[] bytes;
+    private ByteBuffer direct;
+    private final int[] seconds = new int[IDS];
+    private final int[] machineIds = new int[IDS];
+    private final int[] counters = new int[IDS];
+
+    @Setup
+    public void setup() {
+        Identify.initializeByMachineId(0x00abcdef);
+        strings = Identify.nextIds(IDS);
+        bytes = new byte[IDS * LENGTH];
+        for (int i = 0; i < IDS; i++) {
+            System.arraycopy(strings[i].getBytes(StandardCharsets.US_ASCII), 0, bytes, i * LENGTH, LENGTH);
+        }
+        direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IDS)
+    public int[] binaryIdPerId() {
+        for (int i = 0; i < IDS; i++) {
+            BinaryId id = BinaryId.parse(strings[i]);
+            seconds[i] = (int) id.getTimestamp();
+            machineIds[i] = id.getMachineId();
+            counters[i] = id.getCounter();
+        }
+        return counters;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IDS)
+    public int[] strings() {
+        IdDecoder.decode(strings, 0, IDS, seconds, machineIds, counters);
+        return counters;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IDS)
+    public int[] bytes() {
+        IdDecoder.decode(bytes, 0, IDS, seconds, machineIds, counters);
+        return counters;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IDS)
+    public int[] directBuffer() {
+        IdDecoder.decode(direct, IDS, seconds, machineIds, counters);
+        return counters;
+    }
+}
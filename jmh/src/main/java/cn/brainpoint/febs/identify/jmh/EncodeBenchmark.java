@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/29 10:25
+ * Desc:
+ */
+package cn.brainpoint.febs.identify.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import cn.brainpoint.febs.identify.BinaryId;
+import cn.brainpoint.febs.identify.IdEncoding;
+import cn.brainpoint.febs.identify.Identify;
+import cn.brainpoint.febs.identify.ObjectId;
+
+/**
+ * Encoding an id that exists: toHexString() and toByteArray() of the no-pid
+ * and the pid layout, and the base32 and base62 text both ways.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EncodeBenchmark {
+
+    private BinaryId id;
+    private BinaryId pidId;
+    private String base32;
+    private String base62;
+
+    @Setup
+    public void setup() {
+        Identify.initializeByMachineId(0x00abcdef);
+        id = Identify.nextBinaryId();
+        pidId = ObjectId.generateBinary(0x00abcdef, (short) 0x1234);
+        base32 = IdEncoding.BASE32.encode(id);
+        base62 = IdEncoding.BASE62.encode(id);
+    }
+
+    @Benchmark
+    public String toHexString() {
+        return id.toHexString();
+    }
+
+    @Benchmark
+    public byte[] toByteArray() {
+        return id.toByteArray();
+    }
+
+    @Benchmark
+    public String toHexStringPid() {
+        return pidId.toHexString();
+    }
+
+    @Benchmark
+    public byte[] toByteArrayPid() {
+        return pidId.toByteArray();
+    }
+
+    @Benchmark
+    public String toBase32() {
+        return IdEncoding.BASE32.encode(id);
+    }
+
+    @Benchmark
+    public String toBase62() {
+        return IdEncoding.BASE62.encode(id);
+    }
+
+    @Benchmark
+    public BinaryId fromBase32() {
+        return IdEncoding.BASE32.decode(base32);
+    }
+
+    @Benchmark
+    public BinaryId fromBase62() {
+        return IdEncoding.BASE62.decode(base62);
+    }
+}
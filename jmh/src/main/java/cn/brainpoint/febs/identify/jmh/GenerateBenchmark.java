@@ -0,0 +1,57 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/29 10:10
+ * Desc:
+ */
+package cn.brainpoint.febs.identify.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import cn.brainpoint.febs.identify.Identify;
+import cn.brainpoint.febs.identify.ObjectId;
+
+/**
+ * Generating ids: Identify.nextId() on one thread and on all processors, and
+ * ObjectId.generateHex() with a pid.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GenerateBenchmark {
+
+    private static final int MACHINE_ID = 0x00abcdef;
+    private static final short PID = 0x1234;
+
+    @Setup
+    public void setup() {
+        Identify.initializeByMachineId(MACHINE_ID);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String nextId() {
+        return Identify.nextId();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String nextIdAllThreads() {
+        return Identify.nextId();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String generateHexPid() {
+        return ObjectId.generateHex(MACHINE_ID, PID);
+    }
+}
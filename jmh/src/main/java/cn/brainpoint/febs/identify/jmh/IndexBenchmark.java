@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/24 10:40
+ * Desc:
+ */
+package cn.brainpoint.febs.identify.jmh;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import cn.brainpoint.febs.identify.Identify;
+
+/**
+ * Insert ids into the primary key of an embedded H2 table in the order they
+ * arrive from concurrent threads, with and without monotonic ids.
+ *
+ * An id lower than the last inserted one goes into the middle of the index,
+ * which splits half full pages: outOfOrder counts those inserts next to
+ * inserts. The size H2 reports for the table is printed at the end of a trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(4)
+public class IndexBenchmark {
+
+    private static final int BATCH = 1000;
+
+    @Param({ "false", "true" })
+    public boolean monotonic;
+
+    private File dir;
+    private Connection conn;
+    private PreparedStatement insert;
+    private String last;
+    private int pending;
+
+    /**
+     * The inserts of a thread in an iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long inserts;
+        public long outOfOrder;
+
+        @Setup(Level.Iteration)
+        public void clean() {
+            inserts = 0;
+            outOfOrder = 0;
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException, SQLException {
+        Identify.initializeByMachineId(0x00abcdef);
+        Identify.setMonotonic(monotonic);
+        dir = Files.createTempDirectory("febs-identify-index").toFile();
+        conn = DriverManager.getConnection("jdbc:h2:" + new File(dir, "ids").getAbsolutePath(), "sa", "");
+        try (Statement statement = conn.createStatement()) {
+            statement.execute("CREATE TABLE T (ID CHAR(20) PRIMARY KEY)");
+        }
+        conn.setAutoCommit(false);
+        insert = conn.prepareStatement("INSERT INTO T (ID) VALUES (?)");
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        try {
+            insert.executeBatch();
+            conn.commit();
+            try (Statement statement = conn.createStatement();
+                    ResultSet rs = statement.executeQuery("CALL DISK_SPACE_USED('T')")) {
+                rs.next();
+                System.out.println(String.format("%nmonotonic: %s, table size: %,d KB", monotonic,
+                        rs.getLong(1) / 1024));
+            }
+            insert.close();
+            conn.close();
+        } finally {
+            Identify.setMonotonic(false);
+            for (File file : dir.listFiles()) {
+                file.delete();
+            }
+            dir.delete();
+        }
+    }
+
+    @Benchmark
+    public void insert(Counters counters) throws SQLException {
+        String id = Identify.nextId();
+        synchronized (this) {
+            if (null != last && id.compareTo(last) < 0) {
+                counters.outOfOrder++;
+            }
+            counters.inserts++;
+            last = id;
+            insert.setString(1, id);
+            insert.addBatch();
+            if (++pending == BATCH) {
+                insert.executeBatch();
+                conn.commit();
+                pending = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/20 15:10
+ * Desc:
+ */
+package cn.brainpoint.febs.identify.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+import cn.brainpoint.febs.identify.Identify;
+
+/**
+ * The latency percentiles of Identify.nextId(), generated inline (depth 0) and
+ * taken from the pre-generated ring.
+ *
+ * Every call is preceded by a pause of pauseTokens of Blackhole.consumeCPU(),
+ * outside the measured time, like a gateway taking ids between requests, so
+ * that the filler can keep up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(1)
+public class LatencyBenchmark {
+
+    @Param({ "0", "65536" })
+    public int depth;
+
+    @Param({ "2000" })
+    public long pauseTokens;
+
+    @Setup
+    public void setup() throws InterruptedException {
+        Identify.initializeByMachineId(0x00abcdef);
+        if (depth > 0) {
+            Identify.enablePreGeneration(depth);
+            // let the filler render the ring.
+            Thread.sleep(500);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (depth > 0) {
+            Identify.disablePreGeneration();
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void pause() {
+        Blackhole.consumeCPU(pauseTokens);
+    }
+
+    @Benchmark
+    public String nextId() {
+        return Identify.nextId();
+    }
+}
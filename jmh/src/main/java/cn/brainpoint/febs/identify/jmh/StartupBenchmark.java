@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/17 10:30
+ * Desc:
+ */
+package cn.brainpoint.febs.identify.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cn.brainpoint.febs.identify.Identify;
+import cn.brainpoint.febs.identify.IdentifyCfg;
+
+/**
+ * Compare the start of the MyBatis path and the plain JDBC path: the time to
+ * initialize and take the first id, once in every fresh JVM. Run with -prof cl
+ * for the classes loaded.
+ *
+ * The default database is an in-memory H2, which only the JDBC path serves; the
+ * MyBatis path then only builds its bootstrap (setupDatabase, no connection).
+ * Pass a MySQL (e.g. -p type=mysql -p url=localhost:3306/test -p username=root
+ * -p password=secret) to compare both paths up to the first id.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(5)
+public class StartupBenchmark {
+
+    @Param({ "h2" })
+    public String type;
+
+    @Param({ "mem:ids;DB_CLOSE_DELAY=-1" })
+    public String url;
+
+    @Param({ "sa" })
+    public String username;
+
+    @Param({ "" })
+    public String password;
+
+    @Benchmark
+    public String jdbc() {
+        IdentifyCfg cfg = new IdentifyCfg(type, url, username, password);
+        cfg.setPlainJdbc(true);
+        Identify.initializeByDatabase(cfg);
+        return Identify.nextId();
+    }
+
+    @Benchmark
+    public String mybatis() {
+        if ("mysql".equals(type)) {
+            Identify.initializeByDatabase(new IdentifyCfg(type, url, username, password));
+        } else {
+            // the MyBatis bootstrap without a MySQL to connect to.
+            Identify.setupDatabase(new IdentifyCfg("mysql", "localhost:3306/none", "none", "none"));
+            Identify.initializeByMachineId(1);
+        }
+        return Identify.nextId();
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/21 15:30
+ * Desc:
+ */
+package cn.brainpoint.febs.identify.jmh;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import cn.brainpoint.febs.identify.BinaryId;
+import cn.brainpoint.febs.identify.Identify;
+
+/**
+ * The throughput per id of Identify.idStream(), binaryIdStream() and
+ * longIdStream(), sequential and parallel on the common pool, against nextId()
+ * from the workers of a parallel stream.
+ *
+ * longIdStream is bound by the sequences per second of the layout
+ * (LongIdLayout.DEFAULT has 2^20), it parks once the borrowed seconds are
+ * used up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(1)
+public class StreamBenchmark {
+
+    private static final int COUNT = 1 << 18;
+
+    @Setup
+    public void setup() {
+        // fits the 12 machine bits of LongIdLayout.DEFAULT.
+        Identify.initializeByMachineId(0xabc);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int nextIdParallel() {
+        return LongStream.range(0, COUNT).parallel().mapToObj(i -> Identify.nextId()).mapToInt(String::length)
+                .sum();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int idStream() {
+        return Identify.idStream(COUNT).mapToInt(String::length).sum();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int idStreamParallel() {
+        return Identify.idStream(COUNT).parallel().mapToInt(String::length).sum();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int binaryIdStreamParallel() {
+        return Identify.binaryIdStream(COUNT).parallel().mapToInt(BinaryId::length).sum();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public long longIdStreamParallel() {
+        return Identify.longIdStream(COUNT).parallel().sum();
+    }
+}
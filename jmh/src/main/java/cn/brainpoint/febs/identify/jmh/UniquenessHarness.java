@@ -0,0 +1,275 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/31 10:40
+ * Desc:
+ */
+package cn.brainpoint.febs.identify.jmh;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+import cn.brainpoint.febs.identify.IdDecoder;
+import cn.brainpoint.febs.identify.Identify;
+import cn.brainpoint.febs.identify.IdentifyCfg;
+
+/**
+ * Prove that ids are unique at scale: several JVMs, each generating with many
+ * threads, take their machine ids from one H2 file database, as services take
+ * them from MySQL. The parent holds the database open, as its AUTO_SERVER.
+ *
+ * java -cp jmh/target/benchmarks.jar cn.brainpoint.febs.identify.jmh.UniquenessHarness
+ * [jvms] [threads] [idsPerJvm] [increment|lease|fixed]
+ *
+ * The machine ids come from an auto-increment table (increment), or from
+ * leased slots (lease); fixed gives every JVM machine id 1, a check that the
+ * harness does fail.
+ *
+ * Every JVM writes its ids with Identify.nextId(byte[], int) into batches, and
+ * one checker thread decodes them with IdDecoder and sets a bit per id in a
+ * memory-mapped file: a chunk of 2^24 bits (2 MB) for every machine id and
+ * second, mapped when the first id of it shows up. A bit that is set already is
+ * a duplicate. The ids of two JVMs cannot collide unless they used the same
+ * machine id in the same second, which the parent checks from the chunks each
+ * JVM reports. The rate is of generating and checking together, see
+ * GenerateBenchmark for generating alone.
+ *
+ * Exits with 1 if a duplicate, a machine id shared in a second, or a failed JVM
+ * is found.
+ */
+public class UniquenessHarness {
+
+    private static final String CHILD = "child";
+    private static final int LENGTH = 20;
+    private static final int BATCH = 1 << 16;
+    private static final int CHUNK_BYTES = (1 << 24) / 8;
+    private static final int MAX_REPORTED = 10;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && CHILD.equals(args[0])) {
+            child(args[1], Integer.parseInt(args[2]), Long.parseLong(args[3]), args[4]);
+            return;
+        }
+
+        int jvms = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long idsPerJvm = args.length > 2 ? Long.parseLong(args[2]) : 100000000L;
+        String mode = args.length > 3 ? args[3] : "increment";
+
+        File dir = Files.createTempDirectory("febs-uniqueness").toFile();
+        String url = "file:" + new File(dir, "machine").getAbsolutePath() + ";AUTO_SERVER=TRUE";
+        System.out.println(String.format("jvms: %d, threads: %d, ids per jvm: %,d, machine ids: %s, dir: %s", jvms,
+                threads, idsPerJvm, mode, dir));
+
+        // the parent holds the database open, the JVMs connect to its AUTO_SERVER.
+        Connection database = DriverManager.getConnection("jdbc:h2:" + url, "sa", "");
+        List<Process> processes = new ArrayList<>();
+        List<List<String>> outputs = new ArrayList<>();
+        List<Thread> readers = new ArrayList<>();
+        long begin = System.nanoTime();
+        for (int i = 0; i < jvms; i++) {
+            Process process = new ProcessBuilder(System.getProperty("java.home") + File.separator + "bin"
+                    + File.separator + "java", "-cp", System.getProperty("java.class.path"),
+                    UniquenessHarness.class.getName(), CHILD, url, String.valueOf(threads), String.valueOf(idsPerJvm),
+                    mode).redirectErrorStream(true).start();
+            List<String> output = new ArrayList<>();
+            Thread reader = new Thread(() -> {
+                try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                    String line;
+                    while ((line = in.readLine()) != null) {
+                        output.add(line);
+                    }
+                } catch (Exception e) {
+                    output.add("error " + e);
+                }
+            });
+            reader.start();
+            processes.add(process);
+            outputs.add(output);
+            readers.add(reader);
+        }
+
+        boolean ok = true;
+        long ids = 0;
+        long duplicates = 0;
+        long shared = 0;
+        Map<Long, Integer> owners = new HashMap<>();
+        for (int i = 0; i < jvms; i++) {
+            readers.get(i).join();
+            int exit = processes.get(i).waitFor();
+            String result = null;
+            int machineId = -1;
+            for (String line : outputs.get(i)) {
+                String[] fields = line.split(" ");
+                if (line.startsWith("chunk ")) {
+                    long key = Long.parseLong(fields[1]) << 32 | Long.parseLong(fields[2]);
+                    Integer owner = owners.putIfAbsent(key, i);
+                    if (null != owner && shared++ < MAX_REPORTED) {
+                        System.out.println(String.format("  machine id %s used by jvm %d and %d in second %s",
+                                fields[1], owner, i, fields[2]));
+                    }
+                } else if (line.startsWith("machine ")) {
+                    machineId = Integer.parseInt(fields[1]);
+                } else if (line.startsWith("result ")) {
+                    result = line;
+                } else if (!line.startsWith("SLF4J")) {
+                    System.out.println("  jvm " + i + ": " + line);
+                }
+            }
+            if (exit != 0 || null == result) {
+                System.out.println(String.format("jvm %d: failed, exit %d", i, exit));
+                ok = false;
+                continue;
+            }
+            String[] fields = result.split(" ");
+            long count = Long.parseLong(fields[1]);
+            long duplicate = Long.parseLong(fields[2]);
+            double seconds = Long.parseLong(fields[3]) / 1e9;
+            ids += count;
+            duplicates += duplicate;
+            System.out.println(String.format("jvm %d: machine id %d, %,d ids, %,d duplicates, %.1f s, %,.0f ids/s", i,
+                    machineId, count, duplicate, seconds, count / seconds));
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        ok &= duplicates == 0 && shared == 0;
+        System.out.println(String.format(
+                "total: %,d ids in %.1f s, %,.0f ids/s, duplicates: %,d, machine ids shared in a second: %,d, %s",
+                ids, seconds, ids / seconds, duplicates, shared, ok ? "unique" : "FAILED"));
+        database.close();
+        for (File file : dir.listFiles()) {
+            file.delete();
+        }
+        dir.delete();
+        System.exit(ok ? 0 : 1);
+    }
+
+    /**
+     * In a forked JVM: take a machine id, generate and check the ids, and print
+     * "machine id", a "chunk machineId second" per chunk and "result ids
+     * duplicates nanos".
+     */
+    private static void child(final String url, final int threads, final long ids, final String mode)
+            throws Exception {
+        if ("fixed".equals(mode)) {
+            Identify.initializeByMachineId(1);
+        } else {
+            IdentifyCfg cfg = new IdentifyCfg("h2", url, "sa", "");
+            cfg.setRetryCount(5);
+            if ("lease".equals(mode)) {
+                cfg.setLeaseSeconds(30);
+            }
+            Identify.initializeByDatabase(cfg);
+        }
+        System.out.println("machine " + Identify.getMachineId());
+
+        BlockingQueue<byte[]> free = new ArrayBlockingQueue<>(threads * 2 + 2);
+        for (int i = 0; i < threads * 2 + 2; i++) {
+            free.add(new byte[BATCH * LENGTH]);
+        }
+        BlockingQueue<Object[]> full = new ArrayBlockingQueue<>(threads * 2 + 2);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] workers = new Thread[threads];
+        long begin = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            final long share = ids / threads + (t < ids % threads ? 1 : 0);
+            workers[t] = new Thread(() -> {
+                try {
+                    for (long left = share; left > 0;) {
+                        byte[] batch = free.take();
+                        int n = (int) Math.min(BATCH, left);
+                        for (int i = 0, off = 0; i < n; i++) {
+                            off = Identify.nextId(batch, off);
+                        }
+                        full.put(new Object[] { batch, n });
+                        left -= n;
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            workers[t].start();
+        }
+        Thread done = new Thread(() -> {
+            for (Thread worker : workers) {
+                try {
+                    worker.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            full.add(new Object[] { null, 0 });
+        });
+        done.start();
+
+        File file = File.createTempFile("febs-uniqueness", ".bits");
+        file.deleteOnExit();
+        Map<Long, MappedByteBuffer> chunks = new HashMap<>();
+        int[] seconds = new int[BATCH];
+        int[] machineIds = new int[BATCH];
+        int[] counters = new int[BATCH];
+        long checked = 0;
+        long duplicates = 0;
+        try (RandomAccessFile bits = new RandomAccessFile(file, "rw")) {
+            FileChannel channel = bits.getChannel();
+            long lastKey = -1;
+            MappedByteBuffer chunk = null;
+            for (;;) {
+                Object[] entry = full.take();
+                byte[] batch = (byte[]) entry[0];
+                if (null == batch) {
+                    break;
+                }
+                int n = (Integer) entry[1];
+                IdDecoder.decode(batch, 0, n, seconds, machineIds, counters);
+                for (int i = 0; i < n; i++) {
+                    long key = (long) machineIds[i] << 32 | (seconds[i] & 0xffffffffL);
+                    if (key != lastKey) {
+                        chunk = chunks.get(key);
+                        if (null == chunk) {
+                            chunk = channel.map(FileChannel.MapMode.READ_WRITE, (long) chunks.size() * CHUNK_BYTES,
+                                    CHUNK_BYTES);
+                            chunks.put(key, chunk);
+                        }
+                        lastKey = key;
+                    }
+                    int index = (counters[i] >>> 6) << 3;
+                    long bit = 1L << counters[i];
+                    long word = chunk.getLong(index);
+                    if ((word & bit) != 0) {
+                        if (duplicates++ < MAX_REPORTED) {
+                            System.out.println("duplicate " + new String(batch, i * LENGTH, LENGTH, "US-ASCII"));
+                        }
+                    } else {
+                        chunk.putLong(index, word | bit);
+                    }
+                }
+                checked += n;
+                free.put(batch);
+            }
+        }
+        long elapsed = System.nanoTime() - begin;
+        if (null != failure.get()) {
+            failure.get().printStackTrace(System.out);
+            System.exit(1);
+        }
+        for (Long key : chunks.keySet()) {
+            System.out.println("chunk " + (key >>> 32) + " " + (key & 0xffffffffL));
+        }
+        System.out.println(String.format("result %d %d %d", checked, duplicates, elapsed));
+        System.exit(0);
+    }
+}
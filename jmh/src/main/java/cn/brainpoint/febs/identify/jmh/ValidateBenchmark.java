@@ -0,0 +1,163 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/29 10:40
+ * Desc:
+ */
+package cn.brainpoint.febs.identify.jmh;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import cn.brainpoint.febs.identify.IdValidator;
+import cn.brainpoint.febs.identify.Identify;
+
+/**
+ * Identify.isValid() on a valid id, and on malformed ids: a non hex char at
+ * the end, so the whole id is scanned, and a wrong length.
+ *
+ * The batches check IDS ids one by one (the scores are per id): Strings with a
+ * time bound, bytes, heap and direct buffers, clean and with a non hex char at
+ * the end of every id, next to the char by char check IdValidator replaced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ValidateBenchmark {
+
+    private static final int IDS = 1024;
+    private static final int LENGTH = 20;
+
+    private String valid;
+    private String badChar;
+    private String badLength;
+    private String[] strings;
+    private byte[] bytes;
+    private ByteBuffer heap;
+    private ByteBuffer direct;
+    private ByteBuffer directMalformed;
+    private IdValidator timed;
+
+    @Setup
+    public void setup() {
+        Identify.initializeByMachineId(0x00abcdef);
+        valid = Identify.nextId();
+        badChar = valid.substring(0, valid.length() - 1) + 'g';
+        badLength = valid.substring(1);
+
+        strings = Identify.nextIds(IDS);
+        bytes = new byte[IDS * LENGTH];
+        for (int i = 0; i < IDS; i++) {
+            System.arraycopy(strings[i].getBytes(StandardCharsets.US_ASCII), 0, bytes, i * LENGTH, LENGTH);
+        }
+        heap = ByteBuffer.wrap(bytes);
+        direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        directMalformed = ByteBuffer.allocateDirect(bytes.length);
+        directMalformed.put(bytes).flip();
+        for (int i = 0; i < IDS; i++) {
+            directMalformed.put(i * LENGTH + LENGTH - 1, (byte) 'g');
+        }
+        timed = new IdValidator(LENGTH, Instant.parse("2020-01-01T00:00:00Z"), 60);
+    }
+
+    @Benchmark
+    public boolean valid() {
+        return Identify.isValid(valid);
+    }
+
+    @Benchmark
+    public boolean malformedChar() {
+        return Identify.isValid(badChar);
+    }
+
+    @Benchmark
+    public boolean malformedLength() {
+        return Identify.isValid(badLength);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IDS)
+    public int charByChar() {
+        int valid = 0;
+        for (String id : strings) {
+            valid += legacy(id) ? 1 : 0;
+        }
+        return valid;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IDS)
+    public int stringsTimed() {
+        int valid = 0;
+        for (String id : strings) {
+            valid += timed.isValid(id) ? 1 : 0;
+        }
+        return valid;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IDS)
+    public int bytes() {
+        int valid = 0;
+        for (int i = 0; i < IDS; i++) {
+            valid += IdValidator.NOPID.isValid(bytes, i * LENGTH, 1) ? 1 : 0;
+        }
+        return valid;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IDS)
+    public int heapBuffer() {
+        return scan(heap);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IDS)
+    public int directBuffer() {
+        return scan(direct);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IDS)
+    public int directBufferMalformed() {
+        return scan(directMalformed);
+    }
+
+    private static int scan(final ByteBuffer buffer) {
+        int valid = 0;
+        for (int i = 0; i < IDS; i++) {
+            buffer.position(i * LENGTH);
+            valid += IdValidator.NOPID.isValid(buffer, 1) ? 1 : 0;
+        }
+        buffer.position(0);
+        return valid;
+    }
+
+    /**
+     * the check of Identify.isValid() before IdValidator.
+     */
+    private static boolean legacy(final String id) {
+        if (null == id || id.length() != LENGTH) {
+            return false;
+        }
+        for (int j = 0; j < id.length(); j++) {
+            char c = id.charAt(j);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'z'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/30 10:20
+ * Desc:
+ */
+package cn.brainpoint.febs.identify.jmh;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import cn.brainpoint.febs.identify.Identify;
+
+/**
+ * Writing ids as ASCII into a direct buffer: through a String and getBytes(),
+ * next to Identify.nextId(ByteBuffer) and Identify.nextId(byte[], int).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(1)
+public class WriteBenchmark {
+
+    private static final int MACHINE_ID = 0x00abcdef;
+    private static final int IDS = 1024;
+
+    private ByteBuffer direct;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() {
+        Identify.initializeByMachineId(MACHINE_ID);
+        direct = ByteBuffer.allocateDirect(IDS * 20);
+        bytes = new byte[20];
+    }
+
+    @Benchmark
+    public ByteBuffer stringToBuffer() {
+        if (direct.remaining() < 20) {
+            direct.clear();
+        }
+        return direct.put(Identify.nextId().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Benchmark
+    public ByteBuffer nextIdToBuffer() {
+        if (direct.remaining() < 20) {
+            direct.clear();
+        }
+        return Identify.nextId(direct);
+    }
+
+    @Benchmark
+    public byte[] nextIdToBytes() {
+        Identify.nextId(bytes, 0);
+        return bytes;
+    }
+}
@@ -0,0 +1,285 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/9 11:02
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+
+/**
+ * An immutable id in binary, to key maps and sort on primitives instead of
+ * hex strings.
+ *
+ * The first 8 bytes are kept in `high`, the rest (2 bytes of the no-pid
+ * layout, 4 bytes of the pid layout) in `low`, both big-endian. The ordering
+ * is the unsigned order of the bytes, which is the order of the hex strings
+ * of the same layout.
+ *
+ * The parts of an id are read back with getTimestamp(), getMachineId(),
+ * getPid() and getCounter(); minForTime() and maxForTime() bound the no-pid ids
+ * of a second, for a range scan on the id instead of a time column.
+ */
+public final class BinaryId implements Comparable<BinaryId>, Serializable {
+    private static final long serialVersionUID = -3407420865402637563L;
+
+    private final long high;
+    private final int low;
+    /**
+     * ObjectId.OBJECT_ID_LENGTH_NOPID or ObjectId.OBJECT_ID_LENGTH.
+     */
+    private final byte length;
+
+    BinaryId(final long high, final int low, final int length) {
+        this.high = high;
+        this.low = low;
+        this.length = (byte) length;
+    }
+
+    /**
+     * Parse a hex id of 20 (no pid) or 24 (with pid) chars.
+     *
+     * @param hex the hex id.
+     * @return the id.
+     * @throws IllegalArgumentException if it is not a hex id.
+     */
+    public static BinaryId parse(final CharSequence hex) {
+        if (null == hex) {
+            throw new IllegalArgumentException("hex is null");
+        }
+        int chars = hex.length();
+        if (chars != ObjectId.OBJECT_ID_LENGTH_NOPID * 2 && chars != ObjectId.OBJECT_ID_LENGTH * 2) {
+            throw new IllegalArgumentException("invalid hex length: " + chars);
+        }
+        long high = Hex.decode(hex, 0, 16);
+        int low = (int) Hex.decode(hex, 16, chars - 16);
+        return new BinaryId(high, low, chars / 2);
+    }
+
+    /**
+     * Read an id from 10 (no pid) or 12 (with pid) bytes.
+     *
+     * @param bytes the bytes.
+     * @return the id.
+     */
+    public static BinaryId fromBytes(final byte[] bytes) {
+        if (null == bytes) {
+            throw new IllegalArgumentException("bytes is null");
+        }
+        return fromBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Read an id from 10 (no pid) or 12 (with pid) bytes.
+     *
+     * @param bytes  the bytes.
+     * @param off    where the id starts.
+     * @param length 10 or 12.
+     * @return the id.
+     */
+    public static BinaryId fromBytes(final byte[] bytes, final int off, final int length) {
+        if (null == bytes) {
+            throw new IllegalArgumentException("bytes is null");
+        }
+        if (length != ObjectId.OBJECT_ID_LENGTH_NOPID && length != ObjectId.OBJECT_ID_LENGTH) {
+            throw new IllegalArgumentException("invalid length: " + length);
+        }
+        if (off < 0 || bytes.length - off < length) {
+            throw new IllegalArgumentException("bytes.length - off >= " + length);
+        }
+        long high = 0;
+        for (int i = off; i < off + 8; i++) {
+            high = (high << 8) | (bytes[i] & 0xff);
+        }
+        int low = 0;
+        for (int i = off + 8; i < off + length; i++) {
+            low = (low << 8) | (bytes[i] & 0xff);
+        }
+        return new BinaryId(high, low, length);
+    }
+
+    /**
+     * The smallest no-pid id of the second of an instant.
+     *
+     * @param time the time, only the seconds are kept.
+     * @return the id.
+     * @throws IllegalArgumentException if the seconds do not fit in 4 bytes.
+     */
+    public static BinaryId minForTime(final Instant time) {
+        return new BinaryId(seconds(time) << 32, 0, ObjectId.OBJECT_ID_LENGTH_NOPID);
+    }
+
+    /**
+     * The largest no-pid id of the second of an instant.
+     *
+     * @param time the time, only the seconds are kept.
+     * @return the id.
+     * @throws IllegalArgumentException if the seconds do not fit in 4 bytes.
+     */
+    public static BinaryId maxForTime(final Instant time) {
+        return new BinaryId((seconds(time) << 32) | 0xffffffffL, 0xffff, ObjectId.OBJECT_ID_LENGTH_NOPID);
+    }
+
+    private static long seconds(final Instant time) {
+        if (null == time) {
+            throw new IllegalArgumentException("time is null");
+        }
+        long seconds = time.getEpochSecond();
+        if (seconds < 0 || seconds > 0xffffffffL) {
+            throw new IllegalArgumentException("time is out of the range of ids: " + time);
+        }
+        return seconds;
+    }
+
+    /**
+     * @return the first 8 bytes.
+     */
+    long high() {
+        return high;
+    }
+
+    /**
+     * @return the bytes after the first 8.
+     */
+    int low() {
+        return low;
+    }
+
+    /**
+     * @return the seconds since the Unix epoch, unsigned.
+     */
+    public long getTimestamp() {
+        return high >>> 32;
+    }
+
+    /**
+     * @return the time of the id, in seconds.
+     */
+    public Instant getInstant() {
+        return Instant.ofEpochSecond(getTimestamp());
+    }
+
+    /**
+     * @return the 3-byte machine id.
+     */
+    public int getMachineId() {
+        return (int) (high >>> 8) & Sequencer.LOW_ORDER_THREE_BYTES;
+    }
+
+    /**
+     * @return the pid, 0 for the no-pid layout.
+     */
+    public short getPid() {
+        return hasPid() ? (short) ((high & 0xff) << 8 | (low >>> 24)) : 0;
+    }
+
+    /**
+     * @return the 3-byte counter.
+     */
+    public int getCounter() {
+        if (hasPid()) {
+            return low & Sequencer.LOW_ORDER_THREE_BYTES;
+        }
+        return (int) (high & 0xff) << 16 | (low & 0xffff);
+    }
+
+    /**
+     * @return whether it is the 12-byte layout with pid.
+     */
+    public boolean hasPid() {
+        return length == ObjectId.OBJECT_ID_LENGTH;
+    }
+
+    /**
+     * @return 10 (no pid) or 12 (with pid).
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Convert to a byte array in big-endian order.
+     *
+     * @return the byte array.
+     */
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < 8; i++) {
+            bytes[i] = (byte) (high >>> (56 - (i << 3)));
+        }
+        for (int i = 8; i < length; i++) {
+            bytes[i] = (byte) (low >>> ((length - 1 - i) << 3));
+        }
+        return bytes;
+    }
+
+    /**
+     * Put the bytes to the provided ByteBuffer in big-endian order.
+     *
+     * @param buffer the ByteBuffer
+     */
+    public void putToByteBuffer(final ByteBuffer buffer) {
+        if (null == buffer) {
+            throw new IllegalArgumentException("buffer is empty");
+        }
+        if (buffer.remaining() < length) {
+            throw new IllegalArgumentException("buffer.remaining() >=" + length);
+        }
+        for (int i = 0; i < 8; i++) {
+            buffer.put((byte) (high >>> (56 - (i << 3))));
+        }
+        for (int i = 8; i < length; i++) {
+            buffer.put((byte) (low >>> ((length - 1 - i) << 3)));
+        }
+    }
+
+    /**
+     * @return the id in hex.
+     */
+    public String toHexString() {
+        char[] chars = new char[length * 2];
+        int i = Hex.put(chars, 0, high, 8);
+        Hex.put(chars, i, low, length - 8);
+        return new String(chars);
+    }
+
+    @Override
+    public String toString() {
+        return toHexString();
+    }
+
+    @Override
+    public int compareTo(final BinaryId o) {
+        int c = Long.compareUnsigned(high, o.high);
+        if (c != 0) {
+            return c;
+        }
+        // the shorter layout has less bytes after the first 8, align them.
+        long a = (low & 0xffffffffL) << ((ObjectId.OBJECT_ID_LENGTH - length) << 3);
+        long b = (o.low & 0xffffffffL) << ((ObjectId.OBJECT_ID_LENGTH - o.length) << 3);
+        c = Long.compare(a, b);
+        return c != 0 ? c : Integer.compare(length, o.length);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BinaryId)) {
+            return false;
+        }
+        BinaryId other = (BinaryId) o;
+        return high == other.high && low == other.low && length == other.length;
+    }
+
+    @Override
+    public int hashCode() {
+        // the counter is in the low bytes, mix the high bytes in with one multiply.
+        long h = high * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) ^ low;
+    }
+}
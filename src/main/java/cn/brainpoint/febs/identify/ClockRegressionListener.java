@@ -0,0 +1,22 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/7 15:26
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+/**
+ * Be told when the clock goes back.
+ */
+public interface ClockRegressionListener {
+
+    /**
+     * Called once when a regression is detected, not for every id while it
+     * lasts. It runs on the thread generating the id, so it must be quick.
+     *
+     * @param lastSecond  the newest second issued.
+     * @param clockSecond the second read from the clock.
+     */
+    void onClockRegression(long lastSecond, long clockSecond);
+}
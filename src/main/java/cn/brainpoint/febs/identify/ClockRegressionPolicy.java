@@ -0,0 +1,25 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/7 15:20
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+/**
+ * What to do when the clock goes back (NTP step, VM migration) further than a
+ * racing thread could explain.
+ */
+public enum ClockRegressionPolicy {
+    /**
+     * Throw IllegalArgumentException until the clock catches up. This is the
+     * default.
+     */
+    REJECT,
+    /**
+     * Keep issuing ids in the newest second issued until the clock catches up.
+     * Combine it with OverflowPolicy.BORROW or PARK, so that a long hold can not
+     * wrap the counter of the held second.
+     */
+    HOLD,
+}
@@ -0,0 +1,181 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/9 10:30
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Hex encoding and decoding of ids, without allocation.
+ *
+ * Decoding goes through a lookup table that maps a non hex char to -1. The
+ * digits of a run are OR-ed together, so a single sign check at the end tells
+ * whether any char was invalid.
+ *
+ * Encoding to ASCII bytes goes through a 256-entry table of digit pairs, so a
+ * byte of an id is one lookup and no char is built.
+ */
+final class Hex {
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGHS = 0x8080808080808080L;
+
+    /**
+     * the two lowercase hex ASCII digits of a byte, the first digit in the high
+     * byte, so that a byte is written with one lookup.
+     */
+    private static final short[] HEX_PAIRS = new short[256];
+    /**
+     * HEX_PAIRS with the digits swapped, for putShort() to little-endian
+     * buffers.
+     */
+    private static final short[] HEX_PAIRS_LE = new short[256];
+
+    static final char[] HEX_CHARS = new char[] { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c',
+            'd', 'e', 'f' };
+
+    /**
+     * value of a hex digit by char, -1 if it is not a hex digit.
+     */
+    private static final byte[] DIGITS = new byte[128];
+    /**
+     * value of a lowercase hex digit by char or byte, -1 for anything else, as
+     * the ids are rendered in lowercase.
+     */
+    static final byte[] LOWER_DIGITS = new byte[256];
+
+    static {
+        java.util.Arrays.fill(DIGITS, (byte) -1);
+        for (int i = 0; i < 10; i++) {
+            DIGITS['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            DIGITS['a' + i] = (byte) (10 + i);
+            DIGITS['A' + i] = (byte) (10 + i);
+        }
+        for (int i = 0; i < 256; i++) {
+            HEX_PAIRS[i] = (short) (HEX_CHARS[i >>> 4] << 8 | HEX_CHARS[i & 0xF]);
+            HEX_PAIRS_LE[i] = Short.reverseBytes(HEX_PAIRS[i]);
+        }
+        java.util.Arrays.fill(LOWER_DIGITS, (byte) -1);
+        for (int i = 0; i < 10; i++) {
+            LOWER_DIGITS['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            LOWER_DIGITS['a' + i] = (byte) (10 + i);
+        }
+    }
+
+    private Hex() {}
+
+    /**
+     * Write the low `bytes` bytes of value as big-endian hex chars.
+     *
+     * @return the offset after the last written char.
+     */
+    static int put(final char[] dst, int off, final int value, final int bytes) {
+        for (int shift = (bytes << 3) - 4; shift >= 0; shift -= 4) {
+            dst[off++] = HEX_CHARS[(value >>> shift) & 0xF];
+        }
+        return off;
+    }
+
+    /**
+     * Write the low `bytes` bytes of value as big-endian hex chars.
+     *
+     * @return the offset after the last written char.
+     */
+    static int put(final char[] dst, int off, final long value, final int bytes) {
+        for (int shift = (bytes << 3) - 4; shift >= 0; shift -= 4) {
+            dst[off++] = HEX_CHARS[(int) (value >>> shift) & 0xF];
+        }
+        return off;
+    }
+
+    /**
+     * Write the low `bytes` bytes of value as big-endian hex ASCII.
+     *
+     * @return the offset after the last written byte.
+     */
+    static int put(final byte[] dst, int off, final long value, final int bytes) {
+        for (int shift = (bytes - 1) << 3; shift >= 0; shift -= 8) {
+            short pair = HEX_PAIRS[(int) (value >>> shift) & 0xFF];
+            dst[off++] = (byte) (pair >>> 8);
+            dst[off++] = (byte) pair;
+        }
+        return off;
+    }
+
+    /**
+     * Put the low `bytes` bytes of value as big-endian hex ASCII, two digits
+     * at a time, at the position of the buffer.
+     */
+    static void put(final ByteBuffer dst, final long value, final int bytes) {
+        short[] pairs = dst.order() == ByteOrder.BIG_ENDIAN ? HEX_PAIRS : HEX_PAIRS_LE;
+        for (int shift = (bytes - 1) << 3; shift >= 0; shift -= 8) {
+            dst.putShort(pairs[(int) (value >>> shift) & 0xFF]);
+        }
+    }
+
+    /**
+     * The value of a hex digit, or -1. Chars above 127 are folded to -1 without
+     * a branch.
+     */
+    static int digit(final char c) {
+        return DIGITS[c & 0x7f] | ((127 - c) >> 31);
+    }
+
+    /**
+     * The value of a lowercase hex digit, or -1, without a branch.
+     */
+    static int lowerDigit(final char c) {
+        return LOWER_DIGITS[c & 0xff] | ((255 - c) >> 31);
+    }
+
+    /**
+     * Decode `length` (at most 16) hex chars.
+     *
+     * @throws IllegalArgumentException if a char is not a hex digit.
+     */
+    static long decode(final CharSequence s, final int off, final int length) {
+        long value = 0;
+        int bad = 0;
+        for (int i = off; i < off + length; i++) {
+            int d = digit(s.charAt(i));
+            bad |= d;
+            value = (value << 4) | (d & 0xF);
+        }
+        if (bad < 0) {
+            throw new IllegalArgumentException("invalid hex: " + s);
+        }
+        return value;
+    }
+
+    /**
+     * The high bit of every byte of 8 ASCII bytes that is not a lowercase hex
+     * digit (SWAR). The range checks are adds into the high bit of every byte,
+     * which never carry into the next byte, as a byte with the high bit set is
+     * invalid anyway.
+     */
+    static long invalid(final long x) {
+        long ascii = x & ~HIGHS;
+        long digit = (ascii + 0x50 * ONES) & ~(ascii + 0x46 * ONES);
+        long letter = (ascii + 0x1f * ONES) & ~(ascii + 0x19 * ONES);
+        return (x | ~(digit | letter)) & HIGHS;
+    }
+
+    /**
+     * Pack the big-endian hex digits of 8 valid ASCII bytes into their 32-bit
+     * value (SWAR).
+     */
+    static long nibbles(final long x) {
+        long v = (x & 0x0f * ONES) + ((x >>> 6) & ONES) * 9;
+        v = (v | (v >>> 4)) & 0x00ff00ff00ff00ffL;
+        v = (v | (v >>> 8)) & 0x0000ffff0000ffffL;
+        return (v | (v >>> 16)) & 0xffffffffL;
+    }
+}
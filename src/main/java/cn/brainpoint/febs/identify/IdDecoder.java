@@ -0,0 +1,324 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/28 10:05
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Decode many hex ids at once into columns of primitives: seconds, machine ids,
+ * counters, and pids for the 24-char layout. The overloads without pids decode
+ * 20-char ids, those with pids 24-char ids; the columns are written from index
+ * 0 and nothing is allocated per id.
+ *
+ * Bytes are decoded 8 at a time (SWAR): the validity of every byte is OR-ed
+ * into a flag that is checked once after the loop, and the digits are packed
+ * by shifts, so the loop over the ids is straight-line code over primitive
+ * arrays without a branch per id. Chars are decoded through a lookup table.
+ * Only lowercase hex is decoded, like IdValidator.
+ *
+ * The seconds are unsigned, read them with Integer.toUnsignedLong().
+ */
+public final class IdDecoder {
+
+    private static final int NOPID_CHARS = ObjectId.OBJECT_ID_LENGTH_NOPID * 2;
+    private static final int PID_CHARS = ObjectId.OBJECT_ID_LENGTH * 2;
+
+    private IdDecoder() {}
+
+    /**
+     * Decode 20-char ids.
+     *
+     * @param ids        the ids.
+     * @param off        the first id.
+     * @param count      how many ids.
+     * @param seconds    the seconds of the ids.
+     * @param machineIds the machine ids.
+     * @param counters   the counters.
+     * @throws IllegalArgumentException if an id is not valid.
+     */
+    public static void decode(final CharSequence[] ids, final int off, final int count, final int[] seconds,
+            final int[] machineIds, final int[] counters) {
+        checkIds(ids, off, count);
+        checkColumns(count, seconds, machineIds, counters);
+        for (int n = 0; n < count; n++) {
+            CharSequence id = ids[off + n];
+            if (null == id || id.length() != NOPID_CHARS) {
+                throw invalid(off + n);
+            }
+            long second = decode(id, 0, 8);
+            long machine = decode(id, 8, 6);
+            long counter = decode(id, 14, 6);
+            if ((second | machine | counter) < 0) {
+                throw invalid(off + n);
+            }
+            seconds[n] = (int) second;
+            machineIds[n] = (int) machine;
+            counters[n] = (int) counter;
+        }
+    }
+
+    /**
+     * Decode 24-char ids.
+     *
+     * @param ids        the ids.
+     * @param off        the first id.
+     * @param count      how many ids.
+     * @param seconds    the seconds of the ids.
+     * @param machineIds the machine ids.
+     * @param pids       the pids.
+     * @param counters   the counters.
+     * @throws IllegalArgumentException if an id is not valid.
+     */
+    public static void decode(final CharSequence[] ids, final int off, final int count, final int[] seconds,
+            final int[] machineIds, final short[] pids, final int[] counters) {
+        checkIds(ids, off, count);
+        checkColumns(count, seconds, machineIds, counters);
+        checkColumn(count, null == pids ? -1 : pids.length, "pids");
+        for (int n = 0; n < count; n++) {
+            CharSequence id = ids[off + n];
+            if (null == id || id.length() != PID_CHARS) {
+                throw invalid(off + n);
+            }
+            long second = decode(id, 0, 8);
+            long machine = decode(id, 8, 6);
+            long pid = decode(id, 14, 4);
+            long counter = decode(id, 18, 6);
+            if ((second | machine | pid | counter) < 0) {
+                throw invalid(off + n);
+            }
+            seconds[n] = (int) second;
+            machineIds[n] = (int) machine;
+            pids[n] = (short) pid;
+            counters[n] = (int) counter;
+        }
+    }
+
+    /**
+     * Decode 20-char ids of ASCII bytes stored back to back.
+     *
+     * @param ascii      the bytes.
+     * @param off        where the first id starts.
+     * @param count      how many ids.
+     * @param seconds    the seconds of the ids.
+     * @param machineIds the machine ids.
+     * @param counters   the counters.
+     * @throws IllegalArgumentException if an id is not valid.
+     */
+    public static void decode(final byte[] ascii, final int off, final int count, final int[] seconds,
+            final int[] machineIds, final int[] counters) {
+        checkBytes(ascii, off, count, NOPID_CHARS);
+        checkColumns(count, seconds, machineIds, counters);
+        long bad = 0;
+        for (int n = 0, p = off; n < count; n++, p += NOPID_CHARS) {
+            long w0 = word(ascii, p);
+            long w1 = word(ascii, p + 8);
+            long w2 = (ascii[p + 16] & 0xffL) << 24 | (ascii[p + 17] & 0xff) << 16 | (ascii[p + 18] & 0xff) << 8
+                    | (ascii[p + 19] & 0xff);
+            bad |= Hex.invalid(w0) | Hex.invalid(w1) | Hex.invalid(w2) & 0x80808080L;
+            long v1 = Hex.nibbles(w1);
+            seconds[n] = (int) Hex.nibbles(w0);
+            machineIds[n] = (int) (v1 >>> 8);
+            counters[n] = (int) ((v1 & 0xff) << 16 | Hex.nibbles(w2));
+        }
+        if (bad != 0) {
+            throw invalid(IdValidator.NOPID.indexOfInvalid(ascii, off, count));
+        }
+    }
+
+    /**
+     * Decode 24-char ids of ASCII bytes stored back to back.
+     *
+     * @param ascii      the bytes.
+     * @param off        where the first id starts.
+     * @param count      how many ids.
+     * @param seconds    the seconds of the ids.
+     * @param machineIds the machine ids.
+     * @param pids       the pids.
+     * @param counters   the counters.
+     * @throws IllegalArgumentException if an id is not valid.
+     */
+    public static void decode(final byte[] ascii, final int off, final int count, final int[] seconds,
+            final int[] machineIds, final short[] pids, final int[] counters) {
+        checkBytes(ascii, off, count, PID_CHARS);
+        checkColumns(count, seconds, machineIds, counters);
+        checkColumn(count, null == pids ? -1 : pids.length, "pids");
+        long bad = 0;
+        for (int n = 0, p = off; n < count; n++, p += PID_CHARS) {
+            long w0 = word(ascii, p);
+            long w1 = word(ascii, p + 8);
+            long w2 = word(ascii, p + 16);
+            bad |= Hex.invalid(w0) | Hex.invalid(w1) | Hex.invalid(w2);
+            long v1 = Hex.nibbles(w1);
+            long v2 = Hex.nibbles(w2);
+            seconds[n] = (int) Hex.nibbles(w0);
+            machineIds[n] = (int) (v1 >>> 8);
+            pids[n] = (short) ((v1 & 0xff) << 8 | v2 >>> 24);
+            counters[n] = (int) (v2 & Sequencer.LOW_ORDER_THREE_BYTES);
+        }
+        if (bad != 0) {
+            throw invalid(IdValidator.PID.indexOfInvalid(ascii, off, count));
+        }
+    }
+
+    /**
+     * Decode 20-char ids of ASCII bytes stored back to back from the position
+     * of a buffer, the position is not moved.
+     *
+     * @param ascii      the buffer.
+     * @param count      how many ids.
+     * @param seconds    the seconds of the ids.
+     * @param machineIds the machine ids.
+     * @param counters   the counters.
+     * @throws IllegalArgumentException if an id is not valid.
+     */
+    public static void decode(final ByteBuffer ascii, final int count, final int[] seconds, final int[] machineIds,
+            final int[] counters) {
+        checkBuffer(ascii, count, NOPID_CHARS);
+        if (ascii.hasArray()) {
+            decode(ascii.array(), ascii.arrayOffset() + ascii.position(), count, seconds, machineIds, counters);
+            return;
+        }
+        checkColumns(count, seconds, machineIds, counters);
+        boolean swap = ascii.order() != ByteOrder.BIG_ENDIAN;
+        long bad = 0;
+        for (int n = 0, p = ascii.position(); n < count; n++, p += NOPID_CHARS) {
+            long w0 = ascii.getLong(p);
+            long w1 = ascii.getLong(p + 8);
+            long w2 = ascii.getInt(p + 16) & 0xffffffffL;
+            if (swap) {
+                w0 = Long.reverseBytes(w0);
+                w1 = Long.reverseBytes(w1);
+                w2 = Integer.reverseBytes((int) w2) & 0xffffffffL;
+            }
+            bad |= Hex.invalid(w0) | Hex.invalid(w1) | Hex.invalid(w2) & 0x80808080L;
+            // w1 is 6 digits of machine id and the first 2 of the counter, w2 the other 4.
+            long v1 = Hex.nibbles(w1);
+            seconds[n] = (int) Hex.nibbles(w0);
+            machineIds[n] = (int) (v1 >>> 8);
+            counters[n] = (int) ((v1 & 0xff) << 16 | Hex.nibbles(w2));
+        }
+        if (bad != 0) {
+            throw invalid(IdValidator.NOPID.indexOfInvalid(ascii, count));
+        }
+    }
+
+    /**
+     * Decode 24-char ids of ASCII bytes stored back to back from the position
+     * of a buffer, the position is not moved.
+     *
+     * @param ascii      the buffer.
+     * @param count      how many ids.
+     * @param seconds    the seconds of the ids.
+     * @param machineIds the machine ids.
+     * @param pids       the pids.
+     * @param counters   the counters.
+     * @throws IllegalArgumentException if an id is not valid.
+     */
+    public static void decode(final ByteBuffer ascii, final int count, final int[] seconds, final int[] machineIds,
+            final short[] pids, final int[] counters) {
+        checkBuffer(ascii, count, PID_CHARS);
+        if (ascii.hasArray()) {
+            decode(ascii.array(), ascii.arrayOffset() + ascii.position(), count, seconds, machineIds, pids,
+                    counters);
+            return;
+        }
+        checkColumns(count, seconds, machineIds, counters);
+        checkColumn(count, null == pids ? -1 : pids.length, "pids");
+        boolean swap = ascii.order() != ByteOrder.BIG_ENDIAN;
+        long bad = 0;
+        for (int n = 0, p = ascii.position(); n < count; n++, p += PID_CHARS) {
+            long w0 = ascii.getLong(p);
+            long w1 = ascii.getLong(p + 8);
+            long w2 = ascii.getLong(p + 16);
+            if (swap) {
+                w0 = Long.reverseBytes(w0);
+                w1 = Long.reverseBytes(w1);
+                w2 = Long.reverseBytes(w2);
+            }
+            bad |= Hex.invalid(w0) | Hex.invalid(w1) | Hex.invalid(w2);
+            // w1 is 6 digits of machine id and the first 2 of the pid, w2 the other 2 and the counter.
+            long v1 = Hex.nibbles(w1);
+            long v2 = Hex.nibbles(w2);
+            seconds[n] = (int) Hex.nibbles(w0);
+            machineIds[n] = (int) (v1 >>> 8);
+            pids[n] = (short) ((v1 & 0xff) << 8 | v2 >>> 24);
+            counters[n] = (int) (v2 & Sequencer.LOW_ORDER_THREE_BYTES);
+        }
+        if (bad != 0) {
+            throw invalid(IdValidator.PID.indexOfInvalid(ascii, count));
+        }
+    }
+
+    /**
+     * Decode `length` (at most 8) lowercase hex chars.
+     *
+     * @return the value, negative if a char is not a lowercase hex digit.
+     */
+    private static long decode(final CharSequence s, final int off, final int length) {
+        long value = 0;
+        int bad = 0;
+        for (int i = off; i < off + length; i++) {
+            int d = Hex.lowerDigit(s.charAt(i));
+            bad |= d;
+            value = (value << 4) | (d & 0xF);
+        }
+        return value | ((long) bad & Long.MIN_VALUE);
+    }
+
+    /**
+     * Read 8 ASCII bytes big-endian, to check and decode them at once.
+     */
+    private static long word(final byte[] s, final int p) {
+        return (s[p] & 0xffL) << 56 | (s[p + 1] & 0xffL) << 48 | (s[p + 2] & 0xffL) << 40 | (s[p + 3] & 0xffL) << 32
+                | (s[p + 4] & 0xffL) << 24 | (s[p + 5] & 0xff) << 16 | (s[p + 6] & 0xff) << 8 | (s[p + 7] & 0xff);
+    }
+
+    private static IllegalArgumentException invalid(final int index) {
+        return new IllegalArgumentException("invalid id at " + index);
+    }
+
+    private static void checkIds(final CharSequence[] ids, final int off, final int count) {
+        if (null == ids) {
+            throw new IllegalArgumentException("ids is null");
+        }
+        if (off < 0 || count < 0 || ids.length - off < count) {
+            throw new IllegalArgumentException("out of range: off " + off + ", count " + count);
+        }
+    }
+
+    private static void checkBytes(final byte[] ascii, final int off, final int count, final int width) {
+        if (null == ascii) {
+            throw new IllegalArgumentException("ascii is null");
+        }
+        if (off < 0 || count < 0 || (ascii.length - off) / width < count) {
+            throw new IllegalArgumentException("out of range: off " + off + ", count " + count);
+        }
+    }
+
+    private static void checkBuffer(final ByteBuffer ascii, final int count, final int width) {
+        if (null == ascii) {
+            throw new IllegalArgumentException("ascii is null");
+        }
+        if (count < 0 || ascii.remaining() / width < count) {
+            throw new IllegalArgumentException("ascii.remaining() >= " + width + " * count");
+        }
+    }
+
+    private static void checkColumns(final int count, final int[] seconds, final int[] machineIds,
+            final int[] counters) {
+        checkColumn(count, null == seconds ? -1 : seconds.length, "seconds");
+        checkColumn(count, null == machineIds ? -1 : machineIds.length, "machineIds");
+        checkColumn(count, null == counters ? -1 : counters.length, "counters");
+    }
+
+    private static void checkColumn(final int count, final int length, final String name) {
+        if (length < count) {
+            throw new IllegalArgumentException(name + ".length >= " + count);
+        }
+    }
+}
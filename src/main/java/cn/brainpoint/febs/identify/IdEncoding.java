@@ -0,0 +1,429 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/30 15:10
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+/**
+ * Text encodings of the binary ids.
+ *
+ * Every encoding renders an id of a layout with a fixed number of chars, most
+ * significant digit first, with an alphabet in ASCII order, so that the text
+ * order of the ids of a layout is the order of their bytes, that is time
+ * order. Encoding and decoding allocate the text or the BinaryId only.
+ *
+ * | encoding | no pid (10 bytes) | with pid (12 bytes) |
+ * | -------- | ----------------- | ------------------- |
+ * | HEX      | 20                | 24                  |
+ * | BASE32   | 16                | 20                  |
+ * | BASE62   | 14                | 17                  |
+ */
+public enum IdEncoding {
+    /**
+     * lowercase hex, the text of Identify.nextId().
+     */
+    HEX(20, 24) {
+        @Override
+        int put(final long high, final int low, final int bytes, final char[] dst, final int off) {
+            return Hex.put(dst, Hex.put(dst, off, high, 8), low, bytes - 8);
+        }
+
+        @Override
+        int put(final long high, final int low, final int bytes, final byte[] dst, final int off) {
+            return Hex.put(dst, Hex.put(dst, off, high, 8), low, bytes - 8);
+        }
+
+        @Override
+        boolean valid(final CharSequence text, final int bytes) {
+            return (bytes == ObjectId.OBJECT_ID_LENGTH ? IdValidator.PID : IdValidator.NOPID).isValid(text);
+        }
+
+        @Override
+        BinaryId parse(final CharSequence text, final int bytes) {
+            // uppercase digits are accepted, as by BinaryId.parse().
+            return BinaryId.parse(text);
+        }
+    },
+    /**
+     * Crockford's base32: digits and uppercase letters without I, L, O and U.
+     * The 96 bits of the pid layout are followed by 4 zero bits. Decoding is
+     * case insensitive and reads I and L as 1, O as 0.
+     */
+    BASE32(16, 20) {
+        @Override
+        int put(final long high, final int low, final int bytes, final char[] dst, final int off) {
+            int chars = length(bytes);
+            long hi = hi(high, bytes);
+            long lo = lo(high, low, bytes);
+            if (bytes == ObjectId.OBJECT_ID_LENGTH) {
+                hi = (hi << PAD) | (lo >>> (64 - PAD));
+                lo <<= PAD;
+            }
+            for (int i = 0; i < chars; i++) {
+                dst[off + i] = BASE32_CHARS[base32Digit(hi, lo, 5 * (chars - 1 - i))];
+            }
+            return off + chars;
+        }
+
+        @Override
+        int put(final long high, final int low, final int bytes, final byte[] dst, final int off) {
+            int chars = length(bytes);
+            long hi = hi(high, bytes);
+            long lo = lo(high, low, bytes);
+            if (bytes == ObjectId.OBJECT_ID_LENGTH) {
+                hi = (hi << PAD) | (lo >>> (64 - PAD));
+                lo <<= PAD;
+            }
+            for (int i = 0; i < chars; i++) {
+                dst[off + i] = (byte) BASE32_CHARS[base32Digit(hi, lo, 5 * (chars - 1 - i))];
+            }
+            return off + chars;
+        }
+
+        @Override
+        boolean valid(final CharSequence text, final int bytes) {
+            int bad = 0;
+            int d = 0;
+            for (int i = 0; i < text.length(); i++) {
+                d = digit(BASE32_CANONICAL, text.charAt(i));
+                bad |= d;
+            }
+            // the padding bits of the last digit.
+            return bad >= 0 && (bytes == ObjectId.OBJECT_ID_LENGTH_NOPID || (d & PAD_MASK) == 0);
+        }
+
+        @Override
+        BinaryId parse(final CharSequence text, final int bytes) {
+            long hi = 0;
+            long lo = 0;
+            int bad = 0;
+            for (int i = 0; i < text.length(); i++) {
+                int d = digit(BASE32_DIGITS, text.charAt(i));
+                bad |= d;
+                hi = (hi << 5) | (lo >>> 59);
+                lo = (lo << 5) | (d & 31);
+            }
+            if (bytes == ObjectId.OBJECT_ID_LENGTH) {
+                bad |= -(int) (lo & PAD_MASK);
+                lo = (lo >>> PAD) | (hi << (64 - PAD));
+                hi >>>= PAD;
+            }
+            return bad < 0 ? null : binary(hi, lo, bytes);
+        }
+    },
+    /**
+     * digits, uppercase and lowercase letters. It is case sensitive: keep it in
+     * a column of a binary collation.
+     */
+    BASE62(14, 17) {
+        @Override
+        int put(final long high, final int low, final int bytes, final char[] dst, final int off) {
+            long a = hi(high, bytes);
+            long lo = lo(high, low, bytes);
+            long b = lo >>> 32;
+            long c = lo & MASK32;
+            int chars = length(bytes);
+            for (int i = off + chars - 1; i >= off; i--) {
+                long r = a % 62;
+                a /= 62;
+                long t = (r << 32) | b;
+                b = t / 62;
+                t = ((t % 62) << 32) | c;
+                c = t / 62;
+                dst[i] = BASE62_CHARS[(int) (t % 62)];
+            }
+            return off + chars;
+        }
+
+        @Override
+        int put(final long high, final int low, final int bytes, final byte[] dst, final int off) {
+            long a = hi(high, bytes);
+            long lo = lo(high, low, bytes);
+            long b = lo >>> 32;
+            long c = lo & MASK32;
+            int chars = length(bytes);
+            for (int i = off + chars - 1; i >= off; i--) {
+                long r = a % 62;
+                a /= 62;
+                long t = (r << 32) | b;
+                b = t / 62;
+                t = ((t % 62) << 32) | c;
+                c = t / 62;
+                dst[i] = (byte) BASE62_CHARS[(int) (t % 62)];
+            }
+            return off + chars;
+        }
+
+        @Override
+        boolean valid(final CharSequence text, final int bytes) {
+            int bad = 0;
+            for (int i = 0; i < text.length(); i++) {
+                bad |= digit(BASE62_DIGITS, text.charAt(i));
+            }
+            // the text of the largest id of the layout bounds the value.
+            return bad >= 0 && compare(text, bytes == ObjectId.OBJECT_ID_LENGTH ? BASE62_MAX_PID : BASE62_MAX) <= 0;
+        }
+
+        @Override
+        BinaryId parse(final CharSequence text, final int bytes) {
+            if (!valid(text, bytes)) {
+                return null;
+            }
+            long a = 0;
+            long b = 0;
+            long c = 0;
+            for (int i = 0; i < text.length(); i++) {
+                c = c * 62 + BASE62_DIGITS[text.charAt(i)];
+                b = b * 62 + (c >>> 32);
+                a = a * 62 + (b >>> 32);
+                c &= MASK32;
+                b &= MASK32;
+            }
+            return binary(a, (b << 32) | c, bytes);
+        }
+    };
+
+    private static final int PAD = 4;
+    private static final int PAD_MASK = (1 << PAD) - 1;
+    private static final long MASK32 = 0xffffffffL;
+
+    private static final char[] BASE32_CHARS = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final char[] BASE62_CHARS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz"
+            .toCharArray();
+    /**
+     * value of a digit by char, -1 for anything else.
+     */
+    private static final byte[] BASE32_CANONICAL = new byte[128];
+    /**
+     * BASE32_CANONICAL, plus the lowercase letters and the aliases I, L and O.
+     */
+    private static final byte[] BASE32_DIGITS = new byte[128];
+    private static final byte[] BASE62_DIGITS = new byte[128];
+    private static final String BASE62_MAX;
+    private static final String BASE62_MAX_PID;
+
+    static {
+        java.util.Arrays.fill(BASE32_CANONICAL, (byte) -1);
+        java.util.Arrays.fill(BASE32_DIGITS, (byte) -1);
+        java.util.Arrays.fill(BASE62_DIGITS, (byte) -1);
+        for (int i = 0; i < BASE32_CHARS.length; i++) {
+            char c = BASE32_CHARS[i];
+            BASE32_CANONICAL[c] = (byte) i;
+            BASE32_DIGITS[c] = (byte) i;
+            BASE32_DIGITS[Character.toLowerCase(c)] = (byte) i;
+        }
+        for (char c : "oO".toCharArray()) {
+            BASE32_DIGITS[c] = 0;
+        }
+        for (char c : "iIlL".toCharArray()) {
+            BASE32_DIGITS[c] = 1;
+        }
+        for (int i = 0; i < BASE62_CHARS.length; i++) {
+            BASE62_DIGITS[BASE62_CHARS[i]] = (byte) i;
+        }
+        char[] max = new char[17];
+        BASE62.put(-1L, -1, ObjectId.OBJECT_ID_LENGTH_NOPID, max, 0);
+        BASE62_MAX = new String(max, 0, 14);
+        BASE62.put(-1L, -1, ObjectId.OBJECT_ID_LENGTH, max, 0);
+        BASE62_MAX_PID = new String(max);
+    }
+
+    private final int length;
+    private final int lengthPid;
+
+    IdEncoding(final int length, final int lengthPid) {
+        this.length = length;
+        this.lengthPid = lengthPid;
+    }
+
+    /**
+     * @param bytes the bytes of the layout, 10 (no pid) or 12 (with pid).
+     * @return the chars of an id of the layout.
+     */
+    public int length(final int bytes) {
+        if (bytes == ObjectId.OBJECT_ID_LENGTH_NOPID) {
+            return length;
+        }
+        if (bytes == ObjectId.OBJECT_ID_LENGTH) {
+            return lengthPid;
+        }
+        throw new IllegalArgumentException("invalid length: " + bytes);
+    }
+
+    /**
+     * @param id the id.
+     * @return the text of the id.
+     */
+    public String encode(final BinaryId id) {
+        checkId(id);
+        return encode(id.high(), id.low(), id.length());
+    }
+
+    /**
+     * Write the text of an id into the chars.
+     *
+     * @param id  the id.
+     * @param dst the destination chars.
+     * @param off where to write the first char.
+     * @return the offset after the last written char.
+     */
+    public int encode(final BinaryId id, final char[] dst, final int off) {
+        checkId(id);
+        checkRemaining(null == dst ? -1 : dst.length, off, length(id.length()));
+        return put(id.high(), id.low(), id.length(), dst, off);
+    }
+
+    /**
+     * Write the text of an id as ASCII into the bytes.
+     *
+     * @param id  the id.
+     * @param dst the destination bytes.
+     * @param off where to write the first byte.
+     * @return the offset after the last written byte.
+     */
+    public int encode(final BinaryId id, final byte[] dst, final int off) {
+        checkId(id);
+        checkRemaining(null == dst ? -1 : dst.length, off, length(id.length()));
+        return put(id.high(), id.low(), id.length(), dst, off);
+    }
+
+    /**
+     * Read an id of either layout, told apart by the length of the text.
+     *
+     * @param text the text of an id.
+     * @return the id.
+     * @throws IllegalArgumentException if it is not an id of this encoding.
+     */
+    public BinaryId decode(final CharSequence text) {
+        if (null == text) {
+            throw new IllegalArgumentException("text is null");
+        }
+        int bytes = bytesOf(text);
+        BinaryId id = bytes < 0 ? null : parse(text, bytes);
+        if (null == id) {
+            throw new IllegalArgumentException("invalid " + name() + " id: " + text);
+        }
+        return id;
+    }
+
+    /**
+     * Whether the text is an id of either layout, as it is rendered by this
+     * encoding (e.g. no lowercase or alias of BASE32).
+     *
+     * @param text the text.
+     * @return whether it is valid.
+     */
+    public boolean isValid(final CharSequence text) {
+        int bytes = null == text ? -1 : bytesOf(text);
+        return bytes > 0 && valid(text, bytes);
+    }
+
+    /**
+     * Whether the text is an id of a layout, as it is rendered by this encoding.
+     *
+     * @param text  the text.
+     * @param bytes 10 (no pid) or 12 (with pid).
+     * @return whether it is valid.
+     */
+    public boolean isValid(final CharSequence text, final int bytes) {
+        return null != text && text.length() == length(bytes) && valid(text, bytes);
+    }
+
+    String encode(final long high, final int low, final int bytes) {
+        char[] chars = new char[length(bytes)];
+        put(high, low, bytes, chars, 0);
+        return new String(chars);
+    }
+
+    /**
+     * Write the id of high, low (as in BinaryId) and bytes, without checks.
+     *
+     * @return the offset after the last written char.
+     */
+    abstract int put(long high, int low, int bytes, char[] dst, int off);
+
+    abstract int put(long high, int low, int bytes, byte[] dst, int off);
+
+    /**
+     * @param text the text of the length of the layout.
+     */
+    abstract boolean valid(CharSequence text, int bytes);
+
+    /**
+     * @param text the text of the length of the layout.
+     * @return the id, null if the text is invalid.
+     */
+    abstract BinaryId parse(CharSequence text, int bytes);
+
+    private int bytesOf(final CharSequence text) {
+        int chars = text.length();
+        return chars == length ? ObjectId.OBJECT_ID_LENGTH_NOPID
+                : chars == lengthPid ? ObjectId.OBJECT_ID_LENGTH : -1;
+    }
+
+    /**
+     * the id as a number of 80 or 96 bits: the bits above the low 64.
+     */
+    private static long hi(final long high, final int bytes) {
+        return high >>> (64 - ((bytes - 8) << 3));
+    }
+
+    /**
+     * the id as a number of 80 or 96 bits: the low 64 bits.
+     */
+    private static long lo(final long high, final int low, final int bytes) {
+        int lowBits = (bytes - 8) << 3;
+        return (high << lowBits) | (low & ((1L << lowBits) - 1));
+    }
+
+    private static BinaryId binary(final long hi, final long lo, final int bytes) {
+        int lowBits = (bytes - 8) << 3;
+        return new BinaryId((hi << (64 - lowBits)) | (lo >>> lowBits), (int) (lo & ((1L << lowBits) - 1)), bytes);
+    }
+
+    /**
+     * the 5 bits of hi:lo from bit `shift` up.
+     */
+    private static int base32Digit(final long hi, final long lo, final int shift) {
+        long bits;
+        if (shift >= 64) {
+            bits = hi >>> (shift - 64);
+        } else if (shift == 0) {
+            bits = lo;
+        } else {
+            bits = (lo >>> shift) | (hi << (64 - shift));
+        }
+        return (int) bits & 31;
+    }
+
+    private static int digit(final byte[] digits, final char c) {
+        return c < 128 ? digits[c] : -1;
+    }
+
+    private static int compare(final CharSequence text, final String other) {
+        for (int i = 0; i < other.length(); i++) {
+            int c = text.charAt(i) - other.charAt(i);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return 0;
+    }
+
+    private static void checkId(final BinaryId id) {
+        if (null == id) {
+            throw new IllegalArgumentException("id is null");
+        }
+    }
+
+    private static void checkRemaining(final int size, final int off, final int length) {
+        if (size < 0) {
+            throw new IllegalArgumentException("dst is null");
+        }
+        if (off < 0 || size - off < length) {
+            throw new IllegalArgumentException("dst.length - off >= " + length);
+        }
+    }
+}
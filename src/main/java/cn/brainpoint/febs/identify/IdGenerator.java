@@ -0,0 +1,509 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/22 10:30
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import cn.brainpoint.febs.identify.clock.IdClock;
+import cn.brainpoint.febs.identify.exception.NotReadyException;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A generator of ids with counters of its own, e.g. one per entity type, so
+ * that a hot namespace does not use up the 2^24 counters a second of the
+ * others. The static methods of Identify use the default generator.
+ *
+ * A generator has the machine id of Identify unless it is given one. Two
+ * generators with the same machine id issue ids that are unique within each
+ * namespace only; give a namespace a machine id of its own, or prefix bits: the
+ * top bits of the counter (of the sequence for 64-bit ids) are fixed to the
+ * prefix, so the namespaces never overlap, and each has the counters of the
+ * other bits.
+ *
+ * Generators are looked up by namespace with of(), which is a map lookup; keep
+ * the generator in a field on hot paths.
+ */
+@Slf4j
+public final class IdGenerator {
+
+    public static final String DEFAULT_NAMESPACE = "default";
+
+    private static final int ID_LENGTH = ObjectId.OBJECT_ID_LENGTH_NOPID * 2;
+    /**
+     * per thread chars to render id, so nextId() only allocates the result.
+     */
+    private static final ThreadLocal<char[]> ID_BUFFER = ThreadLocal.withInitial(() -> new char[ID_LENGTH]);
+    /**
+     * per thread bytes to write an id to a stream.
+     */
+    private static final ThreadLocal<byte[]> ASCII_BUFFER = ThreadLocal.withInitial(() -> new byte[ID_LENGTH]);
+    /**
+     * how many ids of a batch are rendered into the shared chars at once.
+     */
+    private static final int BATCH_CHUNK = 1024;
+
+    private static final IdGenerator DEFAULT = new IdGenerator(DEFAULT_NAMESPACE, ObjectId.SEQUENCER, 0, 0, 0);
+    private static final ConcurrentMap<String, IdGenerator> REGISTRY = new ConcurrentHashMap<>();
+
+    static {
+        REGISTRY.put(DEFAULT_NAMESPACE, DEFAULT);
+    }
+
+    @Getter
+    private final String namespace;
+    private final Sequencer sequencer;
+    @Getter
+    private final int prefixBits;
+    @Getter
+    private final int prefix;
+    /**
+     * 0 to use the machine id of the default generator.
+     */
+    private volatile int machineId;
+    private volatile LongIdSequencer longIdSequencer;
+
+    /**
+     * A generator with counters of its own and the machine id of Identify.
+     *
+     * @param namespace the name.
+     */
+    public IdGenerator(String namespace) {
+        this(namespace, 0, 0, 0);
+    }
+
+    /**
+     * A generator with counters and a machine id of its own.
+     *
+     * @param namespace the name.
+     * @param machineId the machine id, 0 to use the one of Identify.
+     */
+    public IdGenerator(String namespace, int machineId) {
+        this(namespace, machineId, 0, 0);
+    }
+
+    /**
+     * A generator whose counters have a fixed prefix in the top bits.
+     *
+     * @param namespace  the name.
+     * @param machineId  the machine id, 0 to use the one of Identify.
+     * @param prefixBits how many top bits of the counter are the prefix, at most
+     *                   16; the generator has 2^(24-prefixBits) counters a
+     *                   second.
+     * @param prefix     the value of the top bits.
+     */
+    public IdGenerator(String namespace, int machineId, int prefixBits, int prefix) {
+        this(namespace, new Sequencer(prefixBits, prefix), machineId, prefixBits, prefix);
+    }
+
+    private IdGenerator(String namespace, Sequencer sequencer, int machineId, int prefixBits, int prefix) {
+        if (null == namespace || namespace.isEmpty()) {
+            throw new IllegalArgumentException("namespace is empty");
+        }
+        this.namespace = namespace;
+        this.sequencer = sequencer;
+        this.prefixBits = prefixBits;
+        this.prefix = prefix;
+        this.machineId = machineId % 0x00ffffff;
+        this.longIdSequencer = new LongIdSequencer(sequencer, LongIdLayout.DEFAULT, prefixBits, prefix);
+    }
+
+    /**
+     * @return the generator of Identify.
+     */
+    public static IdGenerator getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Get the generator of a namespace, a generator with counters of its own and
+     * the machine id of Identify is registered if there is none.
+     *
+     * @param namespace the name.
+     * @return the generator.
+     */
+    public static IdGenerator of(String namespace) {
+        IdGenerator generator = REGISTRY.get(namespace);
+        return null != generator ? generator : REGISTRY.computeIfAbsent(namespace, IdGenerator::new);
+    }
+
+    /**
+     * Register a generator under its namespace.
+     *
+     * @param generator the generator.
+     * @return the generator.
+     * @throws IllegalArgumentException if another generator has the namespace.
+     */
+    public static IdGenerator register(IdGenerator generator) {
+        IdGenerator previous = REGISTRY.putIfAbsent(generator.getNamespace(), generator);
+        if (null != previous && previous != generator) {
+            throw new IllegalArgumentException("namespace is registered: " + generator.getNamespace());
+        }
+        return generator;
+    }
+
+    /**
+     * @return the machine id of the ids.
+     */
+    public int getMachineId() {
+        int id = machineId;
+        return id != 0 || this == DEFAULT ? id : DEFAULT.machineId;
+    }
+
+    /**
+     * @return the machine id to generate with.
+     * @throws NotReadyException if there is none, e.g. before initialization or
+     *                           while a lease that could not be renewed is
+     *                           suspended.
+     */
+    private int requireMachineId() {
+        int id = getMachineId();
+        if (id == 0) {
+            IdentifyState state = Identify.getState();
+            throw new NotReadyException(state, "[febs-identify] no machine id: " + state);
+        }
+        return id;
+    }
+
+    /**
+     * Only the machine id of the default generator changes, by Identify.
+     */
+    void setMachineId(int machineId) {
+        this.machineId = machineId;
+        checkLongIdMachine();
+    }
+
+    Sequencer getSequencer() {
+        return sequencer;
+    }
+
+    /**
+     * Set the time source of ids.
+     *
+     * @param clock the clock.
+     */
+    public void setClock(IdClock clock) {
+        if (null == clock) {
+            throw new IllegalArgumentException("clock is null");
+        }
+        sequencer.setClock(clock);
+    }
+
+    /**
+     * @return the time source of ids.
+     */
+    public IdClock getClock() {
+        return sequencer.getClock();
+    }
+
+    /**
+     * Set what to do when the counters of a second are used up, the default is
+     * OverflowPolicy.WRAP. Set it before generating ids.
+     *
+     * @param policy           the policy.
+     * @param maxBorrowSeconds with OverflowPolicy.BORROW, how many seconds ids
+     *                         may run ahead of the clock.
+     */
+    public void setOverflowPolicy(OverflowPolicy policy, int maxBorrowSeconds) {
+        if (null == policy) {
+            throw new IllegalArgumentException("policy is null");
+        }
+        if (maxBorrowSeconds < 0) {
+            throw new IllegalArgumentException("maxBorrowSeconds must not be negative");
+        }
+        sequencer.setOverflowPolicy(policy, maxBorrowSeconds);
+    }
+
+    /**
+     * @return what to do when the counters of a second are used up.
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return sequencer.getOverflowPolicy();
+    }
+
+    /**
+     * Issue strictly increasing ids, see ObjectId.setMonotonic(). Set it before
+     * generating ids.
+     *
+     * @param monotonic whether to issue strictly increasing ids.
+     */
+    public void setMonotonic(boolean monotonic) {
+        sequencer.setMonotonic(monotonic);
+    }
+
+    /**
+     * @return whether the ids are strictly increasing.
+     */
+    public boolean isMonotonic() {
+        return sequencer.isMonotonic();
+    }
+
+    /**
+     * Set what to do when the clock goes back, the default is
+     * ClockRegressionPolicy.REJECT.
+     *
+     * @param policy the policy.
+     */
+    public void setClockRegressionPolicy(ClockRegressionPolicy policy) {
+        if (null == policy) {
+            throw new IllegalArgumentException("policy is null");
+        }
+        sequencer.setClockRegressionPolicy(policy);
+    }
+
+    /**
+     * Be told when the clock goes back.
+     *
+     * @param listener the listener, or null to remove it.
+     */
+    public void setClockRegressionListener(ClockRegressionListener listener) {
+        sequencer.setClockRegressionListener(listener);
+    }
+
+    /**
+     * Generate a new unique id (20size)
+     *
+     * @return distributed unique id
+     */
+    public String nextId() {
+        char[] chars = ID_BUFFER.get();
+        ObjectId.generateHexNoPID(sequencer, requireMachineId(), chars, 0);
+        return new String(chars);
+    }
+
+    /**
+     * Generate a new unique id (20size) into the chars, without any allocation.
+     *
+     * @param dst the destination chars.
+     * @param off where to write the first char.
+     * @return the offset after the last written char.
+     */
+    public int nextId(final char[] dst, final int off) {
+        ObjectId.generateHexNoPID(sequencer, requireMachineId(), dst, off);
+        return off + ID_LENGTH;
+    }
+
+    /**
+     * Generate a new unique id (20size) in hex ASCII into the bytes, without
+     * building chars or a String.
+     *
+     * @param dst the destination bytes.
+     * @param off where to write the first byte.
+     * @return the offset after the last written byte.
+     */
+    public int nextId(final byte[] dst, final int off) {
+        ObjectId.generateHexNoPID(sequencer, requireMachineId(), dst, off);
+        return off + ID_LENGTH;
+    }
+
+    /**
+     * Generate a new unique id (20size) in hex ASCII at the position of the
+     * buffer, heap or direct, e.g. a network frame.
+     *
+     * @param dst the buffer, its position is moved past the id.
+     * @return the buffer.
+     */
+    public ByteBuffer nextId(final ByteBuffer dst) {
+        ObjectId.generateHexNoPID(sequencer, requireMachineId(), dst);
+        return dst;
+    }
+
+    /**
+     * Generate a new unique id (20size) in hex ASCII and write it to the
+     * stream, through a per thread buffer.
+     *
+     * @param out the stream.
+     * @throws IOException if the stream fails.
+     */
+    public void nextId(final OutputStream out) throws IOException {
+        byte[] bytes = ASCII_BUFFER.get();
+        ObjectId.generateHexNoPID(sequencer, requireMachineId(), bytes, 0);
+        out.write(bytes, 0, ID_LENGTH);
+    }
+
+    /**
+     * Generate a new unique id (20size) and append it to the builder.
+     *
+     * @param sb the builder to append to.
+     * @return the builder.
+     */
+    public StringBuilder nextId(final StringBuilder sb) {
+        char[] chars = ID_BUFFER.get();
+        ObjectId.generateHexNoPID(sequencer, requireMachineId(), chars, 0);
+        return sb.append(chars, 0, ID_LENGTH);
+    }
+
+    /**
+     * Generate a new unique id in a text encoding, e.g. IdEncoding.BASE32 (16
+     * chars). The text order of the ids is the order of nextId().
+     *
+     * @param encoding the encoding.
+     * @return distributed unique id
+     */
+    public String nextId(final IdEncoding encoding) {
+        return ObjectId.generateNoPID(sequencer, requireMachineId(), encoding);
+    }
+
+    /**
+     * Generate a new unique id in binary, it renders the same hex as nextId().
+     *
+     * @return distributed unique id
+     */
+    public BinaryId nextBinaryId() {
+        return ObjectId.generateBinaryNoPID(sequencer, requireMachineId());
+    }
+
+    /**
+     * Generate a new unique 64-bit id of the LongIdLayout.
+     *
+     * @return distributed unique id
+     * @throws IllegalStateException if the machine id does not fit in the
+     *                               machine bits of the layout.
+     */
+    public long nextLongId() {
+        LongIdSequencer longIds = longIdSequencer;
+        return longIds.next(longIdMachine(longIds));
+    }
+
+    /**
+     * Set the bit budget of nextLongId(), the default is LongIdLayout.DEFAULT.
+     * Set it before generating ids.
+     *
+     * @param layout the layout, its sequence must have more bits than the
+     *               prefix.
+     */
+    public void setLongIdLayout(LongIdLayout layout) {
+        if (null == layout) {
+            throw new IllegalArgumentException("layout is null");
+        }
+        longIdSequencer = new LongIdSequencer(sequencer, layout, prefixBits, prefix);
+        checkLongIdMachine();
+    }
+
+    /**
+     * @return the bit budget of nextLongId().
+     */
+    public LongIdLayout getLongIdLayout() {
+        return longIdSequencer.getLayout();
+    }
+
+    LongIdSequencer getLongIdSequencer() {
+        return longIdSequencer;
+    }
+
+    private void checkLongIdMachine() {
+        LongIdLayout layout = longIdSequencer.getLayout();
+        int id = getMachineId();
+        if (id > layout.getMaxMachineId()) {
+            log.warn(String.format("[febs] Machine ID %s does not fit in %s bits, nextLongId() will fail.", id,
+                    layout.getMachineBits()));
+        }
+    }
+
+    /**
+     * @return the machine id, if it fits in the layout of the long ids.
+     */
+    private int longIdMachine(final LongIdSequencer longIds) {
+        int id = requireMachineId();
+        if (id > longIds.getLayout().getMaxMachineId()) {
+            // keeping the low bits would give two machines the same long ids.
+            throw new IllegalStateException(String.format(
+                    "Machine ID %s does not fit in the %s machine bits of long ids", id,
+                    longIds.getLayout().getMachineBits()));
+        }
+        return id;
+    }
+
+    /**
+     * Generate n new unique ids (20size). The counters are reserved at once and
+     * all ids are rendered into one shared buffer.
+     * With OverflowPolicy.WRAP more than 2^24 ids in a second repeat ids, use
+     * BORROW or PARK if they must be unique.
+     *
+     * @param n how many ids to generate.
+     * @return distributed unique ids
+     */
+    public String[] nextIds(final int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("n must not be negative");
+        }
+        String[] ids = new String[n];
+        nextIds(ids);
+        return ids;
+    }
+
+    /**
+     * Fill the array with new unique ids (20size). The counters are reserved at
+     * once and all ids are rendered into one shared buffer.
+     * With OverflowPolicy.WRAP more than 2^24 ids in a second repeat ids, use
+     * BORROW or PARK if they must be unique.
+     *
+     * @param dst the array to fill.
+     * @return dst
+     */
+    public String[] nextIds(final String[] dst) {
+        int n = dst.length;
+        int id = requireMachineId();
+        char[] chars = new char[Math.min(n, BATCH_CHUNK) * ID_LENGTH];
+        Sequencer.Range range = new Sequencer.Range();
+        for (int i = 0; i < n;) {
+            ObjectId.reserveNoPID(sequencer, id, range, Math.min(n - i, sequencer.capacity()));
+            int reserved = range.limit - range.next;
+            for (int j = 0; j < reserved; j += BATCH_CHUNK) {
+                int count = Math.min(reserved - j, BATCH_CHUNK);
+                ObjectId.putHexNoPID(sequencer, id, range, j, count, chars, 0);
+                for (int k = 0; k < count; k++) {
+                    dst[i + j + k] = new String(chars, k * ID_LENGTH, ID_LENGTH);
+                }
+            }
+            i += reserved;
+        }
+        return dst;
+    }
+
+    /**
+     * A stream of count new unique ids (20size), for bulk jobs. It splits for
+     * parallel(): every split claims chunks of counters with a single atomic
+     * operation and renders them without shared state.
+     *
+     * @param count how many ids.
+     * @return the ids, not ordered.
+     */
+    public Stream<String> idStream(final long count) {
+        return StreamSupport.stream(new IdSpliterator.Hex(sequencer, requireMachineId(), count), false);
+    }
+
+    /**
+     * A stream of count new unique ids in binary, like idStream().
+     *
+     * @param count how many ids.
+     * @return the ids, not ordered.
+     */
+    public Stream<BinaryId> binaryIdStream(final long count) {
+        return StreamSupport.stream(new IdSpliterator.Binary(sequencer, requireMachineId(), count), false);
+    }
+
+    /**
+     * A stream of count new unique 64-bit ids of the LongIdLayout, like
+     * idStream().
+     *
+     * @param count how many ids.
+     * @return the ids, not ordered.
+     */
+    public LongStream longIdStream(final long count) {
+        LongIdSequencer longIds = longIdSequencer;
+        return StreamSupport.longStream(
+                new LongIdSpliterator(longIds, longIdMachine(longIds), count), false);
+    }
+}
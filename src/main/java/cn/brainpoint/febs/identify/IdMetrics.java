@@ -0,0 +1,68 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/30 10:20
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+import java.util.concurrent.TimeUnit;
+
+import lombok.Getter;
+
+/**
+ * A snapshot of the metrics of Identify, see IdMetricsMXBean for what they
+ * mean. Taking one sums the striped counters; the generator only adds to them,
+ * per lease of counters rather than per id.
+ */
+@Getter
+public final class IdMetrics implements IdMetricsMXBean {
+
+    private final String state;
+    private final int machineId;
+    private final long idsIssued;
+    private final long counterCapacity;
+    private final long counterUsage;
+    private final long counterPeakUsage;
+    private final long counterWraps;
+    private final long clockRegressions;
+    private final long borrows;
+    private final long parks;
+    private final long machineIdAcquisitions;
+    private final long machineIdRetries;
+    private final long machineIdAcquireMillis;
+    private final long machineIdAcquireMaxMillis;
+    private final long preGenerationMisses;
+    private final long preGenerationDiscards;
+
+    IdMetrics(IdentifyState state, int machineId, Sequencer sequencer, IdRing ring, long acquisitions,
+            long retries, long acquireNanos, long acquireMaxNanos) {
+        this.state = state.name();
+        this.machineId = machineId;
+        this.idsIssued = sequencer.getIssuedCount();
+        this.counterCapacity = sequencer.capacity();
+        this.counterUsage = sequencer.getUsage();
+        this.counterPeakUsage = sequencer.getPeakUsage();
+        this.counterWraps = sequencer.getWrapCount();
+        this.clockRegressions = sequencer.getClockRegressionCount();
+        this.borrows = sequencer.getBorrowCount();
+        this.parks = sequencer.getParkCount();
+        this.machineIdAcquisitions = acquisitions;
+        this.machineIdRetries = retries;
+        this.machineIdAcquireMillis = TimeUnit.NANOSECONDS.toMillis(acquireNanos);
+        this.machineIdAcquireMaxMillis = TimeUnit.NANOSECONDS.toMillis(acquireMaxNanos);
+        this.preGenerationMisses = null != ring ? ring.getMissCount() : 0;
+        this.preGenerationDiscards = null != ring ? ring.getDiscardCount() : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "IdMetrics{state=" + state + ", machineId=" + machineId + ", idsIssued=" + idsIssued
+                + ", counterUsage=" + counterUsage + "/" + counterCapacity + ", counterPeakUsage=" + counterPeakUsage
+                + ", counterWraps=" + counterWraps + ", clockRegressions=" + clockRegressions + ", borrows=" + borrows
+                + ", parks=" + parks + ", machineIdAcquisitions=" + machineIdAcquisitions + ", machineIdRetries="
+                + machineIdRetries + ", machineIdAcquireMillis=" + machineIdAcquireMillis
+                + ", machineIdAcquireMaxMillis=" + machineIdAcquireMaxMillis + ", preGenerationMisses="
+                + preGenerationMisses + ", preGenerationDiscards=" + preGenerationDiscards + "}";
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/30 10:40
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+import java.util.concurrent.TimeUnit;
+
+import cn.brainpoint.febs.identify.spi.Backoff;
+
+/**
+ * The live metrics of Identify for JMX, every attribute reads its own counter,
+ * no snapshot is taken.
+ */
+final class IdMetricsBean implements IdMetricsMXBean {
+
+    @Override
+    public String getState() {
+        return Identify.getState().name();
+    }
+
+    @Override
+    public int getMachineId() {
+        return Identify.getMachineId();
+    }
+
+    @Override
+    public long getIdsIssued() {
+        return Identify.getSequencer().getIssuedCount();
+    }
+
+    @Override
+    public long getCounterCapacity() {
+        return Identify.getSequencer().capacity();
+    }
+
+    @Override
+    public long getCounterUsage() {
+        return Identify.getSequencer().getUsage();
+    }
+
+    @Override
+    public long getCounterPeakUsage() {
+        return Identify.getSequencer().getPeakUsage();
+    }
+
+    @Override
+    public long getCounterWraps() {
+        return Identify.getSequencer().getWrapCount();
+    }
+
+    @Override
+    public long getClockRegressions() {
+        return Identify.getSequencer().getClockRegressionCount();
+    }
+
+    @Override
+    public long getBorrows() {
+        return Identify.getSequencer().getBorrowCount();
+    }
+
+    @Override
+    public long getParks() {
+        return Identify.getSequencer().getParkCount();
+    }
+
+    @Override
+    public long getMachineIdAcquisitions() {
+        return Identify.getAcquisitionCount();
+    }
+
+    @Override
+    public long getMachineIdRetries() {
+        return Backoff.getRetryCount();
+    }
+
+    @Override
+    public long getMachineIdAcquireMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(Identify.getAcquireNanos());
+    }
+
+    @Override
+    public long getMachineIdAcquireMaxMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(Identify.getAcquireMaxNanos());
+    }
+
+    @Override
+    public long getPreGenerationMisses() {
+        IdRing ring = Identify.getRing();
+        return null != ring ? ring.getMissCount() : 0;
+    }
+
+    @Override
+    public long getPreGenerationDiscards() {
+        IdRing ring = Identify.getRing();
+        return null != ring ? ring.getDiscardCount() : 0;
+    }
+}
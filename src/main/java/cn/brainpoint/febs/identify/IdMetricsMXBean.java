@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/30 10:00
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+/**
+ * The metrics of Identify over JMX, registered by Identify.registerMBean() as
+ * Identify.OBJECT_NAME. IdMetrics is the same as a plain snapshot.
+ */
+public interface IdMetricsMXBean {
+
+    /**
+     * @return IdentifyState of the process.
+     */
+    String getState();
+
+    /**
+     * @return the machine id, 0 before initialization.
+     */
+    int getMachineId();
+
+    /**
+     * @return the ids of nextId() and the other hex and binary ids issued so
+     *         far. The ids of a lease of 256 counters are added when the lease
+     *         is replaced, so the count runs behind by less than a lease per
+     *         thread; ids of batches are added as they are reserved. The ids of
+     *         nextLongId() are not counted, they have a sequencer of their own.
+     */
+    long getIdsIssued();
+
+    /**
+     * @return the counters a second has.
+     */
+    long getCounterCapacity();
+
+    /**
+     * @return the counters used in the current second.
+     */
+    long getCounterUsage();
+
+    /**
+     * @return the most counters used in a second so far; with
+     *         OverflowPolicy.WRAP, ids repeat once it reaches the capacity.
+     */
+    long getCounterPeakUsage();
+
+    /**
+     * @return how many leases wrapped around the 3-byte counter.
+     */
+    long getCounterWraps();
+
+    /**
+     * @return how many times the clock went back.
+     */
+    long getClockRegressions();
+
+    /**
+     * @return how many times a second was borrowed ahead of the clock.
+     */
+    long getBorrows();
+
+    /**
+     * @return how many times a thread parked for the next second.
+     */
+    long getParks();
+
+    /**
+     * @return how many times a machine id was acquired.
+     */
+    long getMachineIdAcquisitions();
+
+    /**
+     * @return how many times acquiring a machine id (or connecting) was
+     *         retried.
+     */
+    long getMachineIdRetries();
+
+    /**
+     * @return how long the last acquisition took, with its retries.
+     */
+    long getMachineIdAcquireMillis();
+
+    /**
+     * @return the longest acquisition so far.
+     */
+    long getMachineIdAcquireMaxMillis();
+
+    /**
+     * @return how many times nextId() found the pre-generated ids drained.
+     */
+    long getPreGenerationMisses();
+
+    /**
+     * @return how many pre-generated ids were discarded as stale.
+     */
+    long getPreGenerationDiscards();
+}
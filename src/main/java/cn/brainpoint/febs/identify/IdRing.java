@@ -0,0 +1,225 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/20 10:15
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Ids (no pid) rendered ahead of time by a background filler, so that taking
+ * one is a single poll of a bounded lock-free ring.
+ *
+ * The ring is the bounded MPMC queue of Dmitry Vyukov: every slot has a
+ * sequence that tells whether it is free for the producer at a position, or
+ * filled for the consumer at a position, so producer and consumers only touch
+ * their own position and the slot.
+ *
+ * An id is discarded when it is taken if it was rendered for another machine
+ * id, or its second is older than the staleness bound. The filler wakes up
+ * when half of the ring is taken, or every WAKE_MILLIS to move the bound and
+ * drop the stale ids at the head, so that a poll rarely meets one.
+ */
+@Slf4j
+final class IdRing {
+
+    static final int DEFAULT_MAX_STALE_SECONDS = 1;
+    /**
+     * the filler wakes up at least so often to move the staleness bound.
+     */
+    private static final long WAKE_MILLIS = 100;
+    /**
+     * ids reserved and rendered by the filler at once.
+     */
+    private static final int FILL_CHUNK = 256;
+    private static final int ID_LENGTH = ObjectId.OBJECT_ID_LENGTH_NOPID * 2;
+
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final String[] ids;
+    private final long[] seconds;
+    private final int[] machineIds;
+    private final AtomicLong enqueuePos = new AtomicLong();
+    private final AtomicLong dequeuePos = new AtomicLong();
+    private final int maxStaleSeconds;
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+    private final IdGenerator generator;
+    private final Thread filler;
+    /**
+     * ids of an older second than this are stale, moved by the filler.
+     */
+    private volatile long minSecond;
+    private volatile boolean stopped;
+
+    /**
+     * @param depth           how many ids are rendered ahead, rounded up to a
+     *                        power of two.
+     * @param maxStaleSeconds how many seconds an id may lag behind the clock.
+     * @param generator       renders the ids with its machine id.
+     */
+    IdRing(final int depth, final int maxStaleSeconds, final IdGenerator generator) {
+        if (depth < 2 || depth > (1 << 24)) {
+            throw new IllegalArgumentException("depth must be between 2 and " + (1 << 24));
+        }
+        if (maxStaleSeconds < 0) {
+            throw new IllegalArgumentException("maxStaleSeconds must not be negative");
+        }
+        int capacity = Integer.highestOneBit(depth - 1) << 1;
+        this.mask = capacity - 1;
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.ids = new String[capacity];
+        this.seconds = new long[capacity];
+        this.machineIds = new int[capacity];
+        this.maxStaleSeconds = maxStaleSeconds;
+        this.generator = generator;
+        this.minSecond = generator.getClock().currentSeconds() - maxStaleSeconds;
+
+        this.filler = new Thread(this::fill, "febs-identify-ring");
+        this.filler.setDaemon(true);
+        this.filler.start();
+    }
+
+    /**
+     * Take a pre-rendered id.
+     *
+     * @param machineId the machine id the id must have.
+     * @return the id, or null if the ring has no fresh one.
+     */
+    String poll(final int machineId) {
+        for (;;) {
+            long pos = dequeuePos.get();
+            int index = (int) pos & mask;
+            long dif = sequences.get(index) - (pos + 1);
+            if (dif == 0) {
+                if (dequeuePos.compareAndSet(pos, pos + 1)) {
+                    String id = ids[index];
+                    long second = seconds[index];
+                    int machine = machineIds[index];
+                    ids[index] = null;
+                    sequences.lazySet(index, pos + mask + 1);
+                    if ((pos & (mask >>> 1)) == 0) {
+                        LockSupport.unpark(filler);
+                    }
+                    if (machine == machineId && second >= minSecond) {
+                        return id;
+                    }
+                    discarded.increment();
+                }
+            } else if (dif < 0) {
+                misses.increment();
+                LockSupport.unpark(filler);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Put an id, only called by the filler.
+     *
+     * @return false if the ring is full.
+     */
+    private boolean offer(final String id, final long second, final int machineId) {
+        long pos = enqueuePos.get();
+        int index = (int) pos & mask;
+        if (sequences.get(index) != pos) {
+            return false;
+        }
+        enqueuePos.lazySet(pos + 1);
+        ids[index] = id;
+        seconds[index] = second;
+        machineIds[index] = machineId;
+        sequences.lazySet(index, pos + 1);
+        return true;
+    }
+
+    /**
+     * Drop the stale ids at the head, the ids are put in the order of their
+     * seconds; only called by the filler.
+     */
+    private void dropStale(final int machineId) {
+        for (;;) {
+            long pos = dequeuePos.get();
+            int index = (int) pos & mask;
+            if (sequences.get(index) != pos + 1) {
+                return;
+            }
+            if (seconds[index] >= minSecond && machineIds[index] == machineId) {
+                return;
+            }
+            if (dequeuePos.compareAndSet(pos, pos + 1)) {
+                ids[index] = null;
+                sequences.lazySet(index, pos + mask + 1);
+                discarded.increment();
+            }
+        }
+    }
+
+    private int free() {
+        return mask + 1 - (int) (enqueuePos.get() - dequeuePos.get());
+    }
+
+    private void fill() {
+        Sequencer.Range range = new Sequencer.Range();
+        char[] chars = new char[FILL_CHUNK * ID_LENGTH];
+        while (!stopped) {
+            minSecond = generator.getClock().currentSeconds() - maxStaleSeconds;
+            try {
+                Sequencer sequencer = generator.getSequencer();
+                int machineId = generator.getMachineId();
+                dropStale(machineId);
+                int free;
+                while (!stopped && machineId != 0 && (free = free()) > 0) {
+                    ObjectId.reserveNoPID(sequencer, machineId, range, Math.min(free, FILL_CHUNK));
+                    int count = range.limit - range.next;
+                    ObjectId.putHexNoPID(sequencer, machineId, range, 0, count, chars, 0);
+                    for (int i = 0; i < count; i++) {
+                        // only the filler offers, and no more than free.
+                        offer(new String(chars, i * ID_LENGTH, ID_LENGTH), range.second, machineId);
+                    }
+                }
+            } catch (RuntimeException e) {
+                // e.g. a clock regression with ClockRegressionPolicy.REJECT, nextId() generates inline meanwhile.
+                log.warn("[febs-identify] pre-generate ids error: " + e.getMessage());
+            }
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(WAKE_MILLIS));
+        }
+    }
+
+    /**
+     * Stop the filler.
+     */
+    void stop() {
+        stopped = true;
+        LockSupport.unpark(filler);
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return how many polls found no fresh id.
+     */
+    long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return how many ids were discarded as stale or of another machine id.
+     */
+    long getDiscardCount() {
+        return discarded.sum();
+    }
+}
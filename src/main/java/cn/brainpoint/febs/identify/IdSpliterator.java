@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/21 10:20
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A fixed number of new ids (no pid) for a Stream, split for parallel
+ * pipelines.
+ *
+ * A spliterator owns a part of the count. It claims a chunk of counters with a
+ * single atomic operation, and renders the ids of the chunk without shared
+ * state; trySplit() hands half of the unclaimed count to a new spliterator, so
+ * the parts never overlap. A chunk lives in a second, the counters are claimed
+ * chunk by chunk instead of all up front, since a second has 2^24 counters.
+ */
+abstract class IdSpliterator<T> implements Spliterator<T> {
+
+    /**
+     * counters claimed at once.
+     */
+    static final int CHUNK = 4096;
+    /**
+     * a spliterator with less unclaimed ids than this is not split.
+     */
+    private static final long MIN_SPLIT = CHUNK;
+
+    final Sequencer sequencer;
+    final int machineId;
+    final Sequencer.Range range = new Sequencer.Range();
+    /**
+     * ids not claimed yet.
+     */
+    private long unclaimed;
+    /**
+     * the next id of the chunk.
+     */
+    int next;
+    /**
+     * ids in the chunk.
+     */
+    int claimed;
+
+    IdSpliterator(final Sequencer sequencer, final int machineId, final long count) {
+        if (machineId == 0) {
+            throw new IllegalArgumentException("Need a machine id.");
+        }
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative");
+        }
+        this.sequencer = sequencer;
+        this.machineId = machineId;
+        this.unclaimed = count;
+    }
+
+    /**
+     * @return a spliterator of count ids of the same kind.
+     */
+    abstract IdSpliterator<T> create(long count);
+
+    /**
+     * The chunk is claimed in range, prepare to render it.
+     */
+    void rendered() {
+    }
+
+    /**
+     * @param index the index in the chunk.
+     * @return the id.
+     */
+    abstract T get(int index);
+
+    private boolean claim() {
+        if (unclaimed == 0) {
+            return false;
+        }
+        ObjectId.reserveNoPID(sequencer, machineId, range, (int) Math.min(unclaimed, CHUNK));
+        claimed = range.limit - range.next;
+        unclaimed -= claimed;
+        next = 0;
+        rendered();
+        return true;
+    }
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super T> action) {
+        if (next == claimed && !claim()) {
+            return false;
+        }
+        action.accept(get(next++));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(final Consumer<? super T> action) {
+        do {
+            for (int i = next; i < claimed; i++) {
+                action.accept(get(i));
+            }
+            next = claimed;
+        } while (claim());
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        if (unclaimed < MIN_SPLIT * 2) {
+            return null;
+        }
+        long half = unclaimed >>> 1;
+        unclaimed -= half;
+        return create(half);
+    }
+
+    @Override
+    public long estimateSize() {
+        return unclaimed + claimed - next;
+    }
+
+    @Override
+    public int characteristics() {
+        return SIZED | SUBSIZED | DISTINCT | NONNULL | IMMUTABLE;
+    }
+
+    /**
+     * Ids in hex, the chunk is rendered into shared chars at once.
+     */
+    static final class Hex extends IdSpliterator<String> {
+        private static final int LENGTH = ObjectId.OBJECT_ID_LENGTH_NOPID * 2;
+        private char[] chars;
+
+        Hex(final Sequencer sequencer, final int machineId, final long count) {
+            super(sequencer, machineId, count);
+        }
+
+        @Override
+        IdSpliterator<String> create(final long count) {
+            return new Hex(sequencer, machineId, count);
+        }
+
+        @Override
+        void rendered() {
+            if (null == chars) {
+                chars = new char[CHUNK * LENGTH];
+            }
+            ObjectId.putHexNoPID(sequencer, machineId, range, 0, claimed, chars, 0);
+        }
+
+        @Override
+        String get(final int index) {
+            return new String(chars, index * LENGTH, LENGTH);
+        }
+    }
+
+    /**
+     * Ids in binary.
+     */
+    static final class Binary extends IdSpliterator<BinaryId> {
+
+        Binary(final Sequencer sequencer, final int machineId, final long count) {
+            super(sequencer, machineId, count);
+        }
+
+        @Override
+        IdSpliterator<BinaryId> create(final long count) {
+            return new Binary(sequencer, machineId, count);
+        }
+
+        @Override
+        BinaryId get(final int index) {
+            int counter = sequencer.counter(range.next + index);
+            long high = (range.second << 32) | ((long) machineId << 8) | (counter >>> 16);
+            return new BinaryId(high, counter & 0xffff, ObjectId.OBJECT_ID_LENGTH_NOPID);
+        }
+    }
+}
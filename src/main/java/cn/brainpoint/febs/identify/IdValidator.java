@@ -0,0 +1,246 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/27 09:50
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Instant;
+
+/**
+ * Validate hex ids as they are rendered: a fixed length of lowercase hex
+ * digits, and optionally a plausible second in the first 4 bytes.
+ *
+ * Chars and heap bytes go through a lookup table that maps a non hex digit to
+ * -1; the digits of an id are OR-ed together, so a single sign check tells
+ * whether any was invalid. Direct buffers are checked 8 bytes at a time (SWAR):
+ * every byte gets the range checks of '0'-'9' and 'a'-'f' by carry-free adds
+ * into its high bit.
+ *
+ * The bulk overloads take ids stored back to back, e.g. a column of CHAR(20),
+ * and check the time bounds against one clock reading.
+ */
+public final class IdValidator {
+
+    /**
+     * the ids of Identify.nextId(), 20 chars.
+     */
+    public static final IdValidator NOPID = new IdValidator(ObjectId.OBJECT_ID_LENGTH_NOPID * 2);
+    /**
+     * the ids of ObjectId.generateHex() with a pid, 24 chars.
+     */
+    public static final IdValidator PID = new IdValidator(ObjectId.OBJECT_ID_LENGTH * 2);
+
+    private final int length;
+    private final long notBefore;
+    /**
+     * -1 if the second is not checked.
+     */
+    private final long maxAheadSeconds;
+
+    /**
+     * A validator of the format only.
+     *
+     * @param length 20 (no pid) or 24 (with pid) chars.
+     */
+    public IdValidator(int length) {
+        this(length, 0, -1);
+    }
+
+    /**
+     * A validator that also requires the second of an id to be between
+     * notBefore and the clock of ObjectId plus maxAheadSeconds.
+     *
+     * @param length          20 (no pid) or 24 (with pid) chars.
+     * @param notBefore       the earliest plausible time.
+     * @param maxAheadSeconds how many seconds an id may be ahead of the clock,
+     *                        e.g. borrowed by OverflowPolicy.BORROW.
+     */
+    public IdValidator(int length, Instant notBefore, long maxAheadSeconds) {
+        this(length, null == notBefore ? -1 : notBefore.getEpochSecond(), maxAheadSeconds);
+        if (null == notBefore) {
+            throw new IllegalArgumentException("notBefore is null");
+        }
+        if (maxAheadSeconds < 0) {
+            throw new IllegalArgumentException("maxAheadSeconds must not be negative");
+        }
+    }
+
+    private IdValidator(int length, long notBefore, long maxAheadSeconds) {
+        if (length != ObjectId.OBJECT_ID_LENGTH_NOPID * 2 && length != ObjectId.OBJECT_ID_LENGTH * 2) {
+            throw new IllegalArgumentException("invalid length: " + length);
+        }
+        this.length = length;
+        this.notBefore = notBefore;
+        this.maxAheadSeconds = maxAheadSeconds;
+    }
+
+    /**
+     * @return the length of an id in chars.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return the latest plausible second, now.
+     */
+    private long notAfter() {
+        return maxAheadSeconds < 0 ? Long.MAX_VALUE : ObjectId.getClock().currentSeconds() + maxAheadSeconds;
+    }
+
+    /**
+     * @param id an id.
+     * @return whether it is valid.
+     */
+    public boolean isValid(final CharSequence id) {
+        return isValid(id, notAfter());
+    }
+
+    /**
+     * @param ids the ids.
+     * @return whether all are valid.
+     */
+    public boolean isValid(final CharSequence... ids) {
+        return null != ids && indexOfInvalid(ids, 0, ids.length) < 0;
+    }
+
+    /**
+     * @param ids   the ids.
+     * @param off   the first id to check.
+     * @param count how many ids to check.
+     * @return the index of the first invalid id, or -1.
+     */
+    public int indexOfInvalid(final CharSequence[] ids, final int off, final int count) {
+        if (null == ids) {
+            throw new IllegalArgumentException("ids is null");
+        }
+        checkRange(ids.length, off, count, 1);
+        long notAfter = notAfter();
+        for (int i = off; i < off + count; i++) {
+            if (!isValid(ids[i], notAfter)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isValid(final CharSequence id, final long notAfter) {
+        if (null == id || id.length() != length) {
+            return false;
+        }
+        long second = 0;
+        int bad = 0;
+        for (int i = 0; i < 8; i++) {
+            int d = Hex.lowerDigit(id.charAt(i));
+            bad |= d;
+            second = (second << 4) | (d & 0xF);
+        }
+        for (int i = 8; i < length; i++) {
+            bad |= Hex.lowerDigit(id.charAt(i));
+        }
+        return bad >= 0 && second >= notBefore && second <= notAfter;
+    }
+
+    /**
+     * Validate ids of ASCII bytes stored back to back.
+     *
+     * @param ascii the bytes.
+     * @param off   where the first id starts.
+     * @param count how many ids.
+     * @return whether all are valid.
+     */
+    public boolean isValid(final byte[] ascii, final int off, final int count) {
+        return indexOfInvalid(ascii, off, count) < 0;
+    }
+
+    /**
+     * Validate ids of ASCII bytes stored back to back.
+     *
+     * @param ascii the bytes.
+     * @param off   where the first id starts.
+     * @param count how many ids.
+     * @return the index (0 to count - 1) of the first invalid id, or -1.
+     */
+    public int indexOfInvalid(final byte[] ascii, final int off, final int count) {
+        if (null == ascii) {
+            throw new IllegalArgumentException("ascii is null");
+        }
+        checkRange(ascii.length, off, count, length);
+        long notAfter = notAfter();
+        final byte[] digits = Hex.LOWER_DIGITS;
+        for (int n = 0, p = off; n < count; n++, p += length) {
+            long second = 0;
+            int bad = 0;
+            for (int i = p; i < p + 8; i++) {
+                int d = digits[ascii[i] & 0xff];
+                bad |= d;
+                second = (second << 4) | (d & 0xF);
+            }
+            for (int i = p + 8; i < p + length; i++) {
+                bad |= digits[ascii[i] & 0xff];
+            }
+            if (bad < 0 || second < notBefore || second > notAfter) {
+                return n;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Validate ids of ASCII bytes stored back to back from the position of a
+     * buffer, the position is not moved.
+     *
+     * @param ascii the buffer.
+     * @param count how many ids.
+     * @return whether all are valid.
+     */
+    public boolean isValid(final ByteBuffer ascii, final int count) {
+        return indexOfInvalid(ascii, count) < 0;
+    }
+
+    /**
+     * Validate ids of ASCII bytes stored back to back from the position of a
+     * buffer, the position is not moved.
+     *
+     * @param ascii the buffer.
+     * @param count how many ids.
+     * @return the index (0 to count - 1) of the first invalid id, or -1.
+     */
+    public int indexOfInvalid(final ByteBuffer ascii, final int count) {
+        if (null == ascii) {
+            throw new IllegalArgumentException("ascii is null");
+        }
+        if (count < 0 || ascii.remaining() / length < count) {
+            throw new IllegalArgumentException("ascii.remaining() >= " + length + " * count");
+        }
+        if (ascii.hasArray()) {
+            return indexOfInvalid(ascii.array(), ascii.arrayOffset() + ascii.position(), count);
+        }
+        long notAfter = notAfter();
+        boolean bigEndian = ascii.order() == ByteOrder.BIG_ENDIAN;
+        for (int n = 0, p = ascii.position(); n < count; n++, p += length) {
+            long first = ascii.getLong(p);
+            long bad = Hex.invalid(first) | Hex.invalid(ascii.getLong(p + 8));
+            if (length == ObjectId.OBJECT_ID_LENGTH * 2) {
+                bad |= Hex.invalid(ascii.getLong(p + 16));
+            } else {
+                bad |= Hex.invalid(ascii.getInt(p + 16) & 0xffffffffL) & 0x80808080L;
+            }
+            long second = Hex.nibbles(bigEndian ? first : Long.reverseBytes(first));
+            if (bad != 0 || second < notBefore || second > notAfter) {
+                return n;
+            }
+        }
+        return -1;
+    }
+
+    private static void checkRange(final int size, final int off, final int count, final int width) {
+        if (off < 0 || count < 0 || (size - off) / width < count) {
+            throw new IllegalArgumentException("out of range: off " + off + ", count " + count);
+        }
+    }
+}
@@ -6,20 +6,76 @@
  */
 package cn.brainpoint.febs.identify;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.sql.SQLTransientException;
+import java.time.Instant;
+import java.util.ServiceLoader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import cn.brainpoint.febs.identify.clock.IdClock;
 import cn.brainpoint.febs.identify.dao.BaseService;
+import cn.brainpoint.febs.identify.dao.MachineIdLeaseService;
 import cn.brainpoint.febs.identify.dao.MachineIdService;
 import cn.brainpoint.febs.identify.exception.DBException;
+import cn.brainpoint.febs.identify.exception.NotReadyException;
+import cn.brainpoint.febs.identify.spi.Backoff;
+import cn.brainpoint.febs.identify.spi.MachineIdLease;
+import cn.brainpoint.febs.identify.spi.MachineIdProvider;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class Identify {
     /**
-     * machine id.
+     * the name of IdMetricsMXBean, with registerMBean().
+     */
+    public static final String OBJECT_NAME = "cn.brainpoint.febs.identify:type=Identify";
+    /**
+     * the machine id and counters of the static methods.
+     */
+    private static final IdGenerator GENERATOR = IdGenerator.getDefault();
+    /**
+     * the leased machine id, with IdentifyCfg.leaseSeconds.
+     */
+    private static MachineIdLease lease;
+    /**
+     * where the machine id comes from, with initializeByDatabase().
+     */
+    private static MachineIdProvider provider;
+    private static boolean releaseOnShutdown;
+    private static volatile IdentifyState state = IdentifyState.NOT_INITIALIZED;
+    /**
+     * the latest initialization, completed with the machine id.
      */
-    private static int machineId = 0;
-    private static final int ID_LENGTH = 20;
-    private static final String DEFAULT_TABLENAME = "_distribute_machineId";
+    private static volatile CompletableFuture<Integer> initializing;
+    private static final int DEFAULT_CONNECT_DEADLINE = 60000;
+    /**
+     * pre-rendered ids of nextId(), null unless enablePreGeneration().
+     */
+    private static volatile IdRing ring;
+    /**
+     * how long initializations took, from begin() to ready().
+     */
+    private static final LongAdder ACQUISITIONS = new LongAdder();
+    private static final LongAccumulator ACQUIRE_MAX_NANOS = new LongAccumulator(Math::max, 0);
+    private static volatile long acquireNanos;
+    private static volatile long beginNanos;
 
     public static class Configuration {
         private static String driver;
@@ -29,6 +85,10 @@ public class Identify {
         @Getter
         private static String tablename;
         private static int retryCount;
+        @Getter
+        private static int leaseSeconds;
+        private static int slotCount;
+        private static String stateFile;
     }
 
     /**
@@ -45,32 +105,245 @@ public class Identify {
         machine_id %= 0x00ffffff;
         log.info(String.format("[febs] Machine ID: %s;", machine_id));
 
-        machineId = machine_id;
+        CompletableFuture<Integer> future = begin();
+        GENERATOR.setMachineId(machine_id);
+        ready(future, machine_id);
     }
 
     /**
      * Initialize with database configuration, and create a machine id.
+     *
+     * The machine id comes from the first MachineIdProvider (loaded by
+     * ServiceLoader) that supports the config: mysql, h2, postgresql, or file
+     * are built in. A machine id taken by a previous call is given back first,
+     * and no ids are issued until the new one is taken.
      * 
-     * @param config db config.
+     * @param config db config, or null to use the MySQL of setupDatabase().
+     * @throws IllegalStateException if no machine id can be taken from the
+     *                               database, e.g. it cannot be reached; the
+     *                               cause is the DBException.
      */
     public static void initializeByDatabase(IdentifyCfg config) {
-        if (config != null) {
-            setupDatabase(config);
-        }
+        MachineIdProvider found = findProvider(config);
+        CompletableFuture<Integer> future = begin();
 
         try {
-            machineId = generateNewMachineId();
+            ready(future, acquire(found, config));
         } catch (DBException e) {
-            log.error(e.getMessage(), e);
-            System.exit(-1);
+            failed(future, e);
+            throw new IllegalStateException("[febs-identify] cannot take a machine id from the database", e);
         }
 
-        log.info(String.format("[febs] Machine ID: %s; Url: %s; Table: %s", machineId, Configuration.url,
-                Configuration.tablename));
-
         // BaseService.destroy();
     }
 
+    /**
+     * Initialize with database configuration in background, and create a machine
+     * id; the calling thread is not blocked.
+     *
+     * Attempts that fail to connect (a transient SQL error or a connect
+     * timeout) are retried with exponential backoff and jitter until
+     * IdentifyCfg.connectDeadline (default 60 seconds). Meanwhile getState() is
+     * IdentifyState.INITIALIZING; then wait with awaitReady(), or fail fast
+     * with requireReady(). Any other error, e.g. a wrong password or a missing
+     * driver, fails the future at once; so does the last error at the
+     * deadline. The process keeps running.
+     *
+     * @param config db config, or null to use the MySQL of setupDatabase().
+     * @return completed with the machine id.
+     */
+    public static CompletableFuture<Integer> initializeAsync(IdentifyCfg config) {
+        final MachineIdProvider found = findProvider(config);
+        final int deadlineMillis = null != config && config.getConnectDeadline() > 0 ? config.getConnectDeadline()
+                : DEFAULT_CONNECT_DEADLINE;
+        final long deadline = System.currentTimeMillis() + deadlineMillis;
+        final CompletableFuture<Integer> future = begin();
+
+        Thread thread = new Thread(() -> {
+            for (int attempt = 1;; attempt++) {
+                if (initializing != future) {
+                    future.completeExceptionally(new NotReadyException(state,
+                            "[febs-identify] superseded by another initialization"));
+                    return;
+                }
+                try {
+                    ready(future, acquire(found, config));
+                    return;
+                } catch (RuntimeException e) {
+                    long left = deadline - System.currentTimeMillis();
+                    if (!isTransient(e) || left <= 0) {
+                        log.error("[febs-identify] initialize error", e);
+                        failed(future, e);
+                        return;
+                    }
+                    log.warn(String.format("[febs-identify] initialize attempt %d error: %s", attempt,
+                            e.getMessage()));
+                    if (!Backoff.sleep(attempt, left)) {
+                        failed(future, e);
+                        return;
+                    }
+                }
+            }
+        }, "febs-identify-init");
+        thread.setDaemon(true);
+        thread.start();
+        return future;
+    }
+
+    /**
+     * @return whether the database could not be reached for now, and another
+     *         attempt may succeed.
+     */
+    private static boolean isTransient(RuntimeException e) {
+        if (!(e instanceof DBException)) {
+            return false;
+        }
+        for (Throwable cause = e.getCause(); null != cause; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientException || cause instanceof ConnectException
+                    || cause instanceof SocketTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int acquire(MachineIdProvider found, IdentifyCfg config) {
+        synchronized (Identify.class) {
+            if (null != provider) {
+                // the slot may be taken by another process while a new one is acquired.
+                withdrawMachineId();
+                provider.release();
+            }
+            provider = found;
+            registerShutdownHook();
+        }
+
+        int id = found.acquire(config, Identify::changeMachineId);
+        GENERATOR.setMachineId(id);
+        return id;
+    }
+
+    /**
+     * The machine id of a lease changed; 0 suspends the ids until the lease is
+     * renewed or leased again.
+     */
+    private static synchronized void changeMachineId(int slot) {
+        if (slot == 0) {
+            if (GENERATOR.getMachineId() == 0) {
+                // withdrawn already, e.g. released.
+                return;
+            }
+            log.error("[febs-identify] the machine id cannot be used, no ids until its lease is renewed");
+            GENERATOR.setMachineId(0);
+            if (state == IdentifyState.READY) {
+                state = IdentifyState.SUSPENDED;
+            }
+            return;
+        }
+        log.info(String.format("[febs] Machine ID: %s (leased again);", slot));
+        GENERATOR.setMachineId(slot);
+        if (state == IdentifyState.SUSPENDED) {
+            state = IdentifyState.READY;
+        }
+    }
+
+    /**
+     * No ids with the machine id from now on, before it goes back to the store.
+     */
+    private static synchronized void withdrawMachineId() {
+        GENERATOR.setMachineId(0);
+        if (state == IdentifyState.READY || state == IdentifyState.SUSPENDED) {
+            state = IdentifyState.NOT_INITIALIZED;
+        }
+    }
+
+    private static synchronized CompletableFuture<Integer> begin() {
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        initializing = future;
+        state = IdentifyState.INITIALIZING;
+        beginNanos = System.nanoTime();
+        return future;
+    }
+
+    private static void ready(CompletableFuture<Integer> future, int id) {
+        synchronized (Identify.class) {
+            if (initializing == future) {
+                state = IdentifyState.READY;
+                acquireNanos = System.nanoTime() - beginNanos;
+                ACQUIRE_MAX_NANOS.accumulate(acquireNanos);
+                ACQUISITIONS.increment();
+            }
+        }
+        future.complete(id);
+    }
+
+    private static void failed(CompletableFuture<Integer> future, Throwable e) {
+        synchronized (Identify.class) {
+            if (initializing == future) {
+                state = IdentifyState.FAILED;
+            }
+        }
+        future.completeExceptionally(e);
+    }
+
+    /**
+     * @return whether there is a machine id to generate ids with.
+     */
+    public static IdentifyState getState() {
+        return state;
+    }
+
+    /**
+     * Fail fast if there is no machine id (yet).
+     *
+     * @throws NotReadyException if getState() is not IdentifyState.READY.
+     */
+    public static void requireReady() {
+        IdentifyState current = state;
+        if (current != IdentifyState.READY) {
+            throw new NotReadyException(current, "[febs-identify] not ready: " + current);
+        }
+    }
+
+    /**
+     * Block until the latest initialization is done.
+     *
+     * @param timeout how long to wait at most.
+     * @param unit    the unit of timeout.
+     * @return the machine id.
+     * @throws NotReadyException if it is not initialized, failed, is still not
+     *                           done after the timeout, or the thread is
+     *                           interrupted.
+     */
+    public static int awaitReady(long timeout, TimeUnit unit) {
+        CompletableFuture<Integer> future = initializing;
+        if (null == future) {
+            throw new NotReadyException(state, "[febs-identify] not initialized");
+        }
+        try {
+            return future.get(timeout, unit);
+        } catch (TimeoutException e) {
+            throw new NotReadyException(state, "[febs-identify] not ready after " + timeout + " " + unit, e);
+        } catch (ExecutionException e) {
+            throw new NotReadyException(state, "[febs-identify] initialize failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NotReadyException(state, "[febs-identify] interrupted", e);
+        }
+    }
+
+    private static MachineIdProvider findProvider(IdentifyCfg config) {
+        for (MachineIdProvider p : ServiceLoader.load(MachineIdProvider.class, Identify.class.getClassLoader())) {
+            if (p.supports(config)) {
+                return p;
+            }
+        }
+        if (null == config) {
+            throw new IllegalArgumentException("config is null, and setupDatabase() needs MyBatis");
+        }
+        throw new IllegalArgumentException("unsupported type: " + config.getType());
+    }
+
     /**
      * Setup database configuration, but don't create a machine_id. And then can
      * call generateNewMachineId().
@@ -87,14 +360,13 @@ public class Identify {
             throw new IllegalArgumentException("cfg is error");
         }
 
-        String tablename = config.getTablename();
-        if (null != tablename) {
-            tablename = tablename.trim();
-        }
-
-        String dbTablename = tablename == null || tablename.length() == 0 ? DEFAULT_TABLENAME : tablename;
+        String dbTablename = config.resolveTablename();
         int connectTimeout = config.getConnectTimeout() <= 0 ? 5000 : config.getConnectTimeout();
 
+        Configuration.leaseSeconds = Math.max(0, config.getLeaseSeconds());
+        Configuration.slotCount = config.resolveSlotCount();
+        Configuration.stateFile = config.getStateFile();
+
         if (dbTablename.equals(Configuration.tablename) && config.getDriver().equals(Configuration.driver)
                 && config.getUri().equals(Configuration.url) && config.getUsername().equals(Configuration.username)
                 && config.getPassword().equals(Configuration.password)) {
@@ -118,7 +390,158 @@ public class Identify {
      * @return machine id.
      */
     public static int getMachineId() {
-        return machineId;
+        return GENERATOR.getMachineId();
+    }
+
+    /**
+     * A snapshot of the metrics of the ids and the machine id. The generator
+     * only adds to striped counters per lease of counters, the sums are taken
+     * here.
+     *
+     * @return the metrics.
+     */
+    public static IdMetrics getMetrics() {
+        return new IdMetrics(state, GENERATOR.getMachineId(), getSequencer(), ring, getAcquisitionCount(),
+                Backoff.getRetryCount(), acquireNanos, getAcquireMaxNanos());
+    }
+
+    static Sequencer getSequencer() {
+        return GENERATOR.getSequencer();
+    }
+
+    static IdRing getRing() {
+        return ring;
+    }
+
+    static long getAcquisitionCount() {
+        return ACQUISITIONS.sum();
+    }
+
+    static long getAcquireNanos() {
+        return acquireNanos;
+    }
+
+    static long getAcquireMaxNanos() {
+        return ACQUIRE_MAX_NANOS.get();
+    }
+
+    /**
+     * Register the metrics as an MXBean named OBJECT_NAME in the platform
+     * MBeanServer, if not yet.
+     *
+     * @return false if it could not be registered.
+     */
+    public static synchronized boolean registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new IdMetricsBean(), name);
+            }
+            return true;
+        } catch (JMException e) {
+            log.warn("[febs-identify] register mbean error: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Unregister the MXBean of registerMBean().
+     */
+    public static synchronized void unregisterMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            log.warn("[febs-identify] unregister mbean error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Set the time source of ids, e.g. a CachedIdClock to avoid reading the
+     * system time on every id, or a ManualIdClock in tests.
+     *
+     * @param clock the clock.
+     */
+    public static void setClock(IdClock clock) {
+        ObjectId.setClock(clock);
+    }
+
+    /**
+     * Get the time source of ids.
+     *
+     * @return the clock.
+     */
+    public static IdClock getClock() {
+        return ObjectId.getClock();
+    }
+
+    /**
+     * Set what to do when the 3-byte counter space of a second is used up, the
+     * default is OverflowPolicy.WRAP. Set it before generating ids.
+     *
+     * @param policy the policy; OverflowPolicy.BORROW may run 2 seconds ahead
+     *               of the clock.
+     */
+    public static void setOverflowPolicy(OverflowPolicy policy) {
+        ObjectId.setOverflowPolicy(policy, Sequencer.DEFAULT_MAX_BORROW_SECONDS);
+    }
+
+    /**
+     * Set what to do when the 3-byte counter space of a second is used up, the
+     * default is OverflowPolicy.WRAP. Set it before generating ids.
+     *
+     * @param policy           the policy.
+     * @param maxBorrowSeconds with OverflowPolicy.BORROW, how many seconds ids
+     *                         may run ahead of the clock.
+     */
+    public static void setOverflowPolicy(OverflowPolicy policy, int maxBorrowSeconds) {
+        ObjectId.setOverflowPolicy(policy, maxBorrowSeconds);
+    }
+
+    /**
+     * Issue the ids of this process strictly increasing, in bytes and in hex,
+     * e.g. for a clustered primary key that is only appended to. The counter of
+     * every second starts from 0 and never wraps; every id takes a CAS on a
+     * shared state. Set it before generating ids; the ids of
+     * enablePreGeneration() are issued ahead of the others, do not use both.
+     *
+     * @param monotonic whether to issue strictly increasing ids.
+     */
+    public static void setMonotonic(boolean monotonic) {
+        ObjectId.setMonotonic(monotonic);
+    }
+
+    /**
+     * @return whether the ids are strictly increasing.
+     */
+    public static boolean isMonotonic() {
+        return ObjectId.isMonotonic();
+    }
+
+    /**
+     * Set what to do when the clock goes back, the default is
+     * ClockRegressionPolicy.REJECT. With ClockRegressionPolicy.HOLD ids, long
+     * ids included, keep the newest second issued until the clock catches up;
+     * detected regressions are counted in ObjectId.getClockRegressionCount() and
+     * reported to the ClockRegressionListener.
+     *
+     * @param policy the policy.
+     */
+    public static void setClockRegressionPolicy(ClockRegressionPolicy policy) {
+        ObjectId.setClockRegressionPolicy(policy);
+    }
+
+    /**
+     * Be told when the clock goes back.
+     *
+     * @param listener the listener, or null to remove it.
+     */
+    public static void setClockRegressionListener(ClockRegressionListener listener) {
+        ObjectId.setClockRegressionListener(listener);
     }
 
     /**
@@ -141,47 +564,426 @@ public class Identify {
                 }
                 log.warn("Get Machine id error", e);
                 log.info(String.format("[febs-identify] retry connect %d", ++i));
+                if (!Backoff.sleep(i, Backoff.MAX_MILLIS)) {
+                    throw new DBException("Get Machine id error", e);
+                }
             }
         } while (--retryCount >= 0);
 
         return machine_id %= 0x00ffffff;
     }
 
+    /**
+     * Lease a machine id from the slot table `tablename + "_lease"`, and keep it
+     * alive in background. A machine id leased before is released first.
+     *
+     * With IdentifyCfg.stateFile, a lease kept in the file by a previous run on
+     * this host is resumed without a database round-trip while it is valid, and
+     * revalidated in background.
+     *
+     * @return a leased machine id.
+     */
+    public static synchronized int leaseMachineId() throws DBException {
+        if (null == Configuration.tablename) {
+            throw new IllegalStateException("setupDatabase() first");
+        }
+        releaseMachineId();
+        registerShutdownHook();
+
+        String table = Configuration.tablename + IdentifyCfg.LEASE_TABLE_SUFFIX;
+        int leaseSeconds = Configuration.leaseSeconds > 0 ? Configuration.leaseSeconds : 60;
+        int slotCount = Configuration.slotCount > 0 ? Configuration.slotCount : IdentifyCfg.DEFAULT_SLOT_COUNT;
+        lease = MachineIdLease.start(new MachineIdLeaseService(table), leaseSeconds, slotCount,
+                Configuration.stateFile, Configuration.url + "|" + table, Identify::changeMachineId);
+        return lease.getSlot();
+    }
+
+    /**
+     * Give the leased machine id back. The nextId methods throw
+     * NotReadyException until a new machine id is set.
+     */
+    public static synchronized void releaseMachineId() {
+        if (null != lease) {
+            withdrawMachineId();
+            lease.close();
+            lease = null;
+        }
+    }
+
+    private static synchronized void registerShutdownHook() {
+        if (!releaseOnShutdown) {
+            Runtime.getRuntime().addShutdownHook(new Thread(Identify::shutdown, "febs-identify-release"));
+            releaseOnShutdown = true;
+        }
+    }
+
+    /**
+     * At shutdown, give the leased machine id back, or keep it for the next run
+     * if it is kept in a state file.
+     */
+    private static synchronized void shutdown() {
+        if (null != lease || null != provider) {
+            withdrawMachineId();
+        }
+        if (null != lease) {
+            lease.shutdown();
+            lease = null;
+        }
+        if (null != provider) {
+            provider.shutdown();
+            provider = null;
+        }
+    }
+
     /**
      * Generate a new unique id (20size)
      * 
      * @return distributed unique id
      */
     public static String nextId() {
-        String id = ObjectId.generateHexNoPID(machineId);
+        IdRing r = ring;
+        if (null != r) {
+            String id = r.poll(GENERATOR.getMachineId());
+            if (null != id) {
+                return id;
+            }
+        }
+        return GENERATOR.nextId();
+    }
+
+    /**
+     * Let a background thread render the ids of nextId() ahead of time into a
+     * bounded lock-free ring, so that nextId() is a single poll. It falls back
+     * to generating inline when the ring is drained. Only nextId() returning a
+     * String takes ids from the ring.
+     *
+     * @param depth           how many ids are rendered ahead, rounded up to a
+     *                        power of two.
+     * @param maxStaleSeconds an id whose second lags behind the clock more than
+     *                        this is discarded.
+     */
+    public static synchronized void enablePreGeneration(int depth, int maxStaleSeconds) {
+        IdRing previous = ring;
+        ring = new IdRing(depth, maxStaleSeconds, GENERATOR);
+        if (null != previous) {
+            previous.stop();
+        }
+    }
 
-        assert id.length() == ObjectId.OBJECT_ID_LENGTH_NOPID
-                * 2 : "generate objectID length != OBJECT_ID_LENGTH_noPID*2";
+    /**
+     * Pre-render the ids of nextId(), an id may lag one second behind the
+     * clock.
+     *
+     * @param depth how many ids are rendered ahead.
+     */
+    public static void enablePreGeneration(int depth) {
+        enablePreGeneration(depth, IdRing.DEFAULT_MAX_STALE_SECONDS);
+    }
 
-        return id;
+    /**
+     * Stop pre-rendering, nextId() generates inline again.
+     */
+    public static synchronized void disablePreGeneration() {
+        IdRing previous = ring;
+        ring = null;
+        if (null != previous) {
+            previous.stop();
+        }
+    }
+
+    /**
+     * Generate a new unique id (20size) into the chars, without any allocation.
+     *
+     * @param dst the destination chars.
+     * @param off where to write the first char.
+     * @return the offset after the last written char.
+     */
+    public static int nextId(final char[] dst, final int off) {
+        return GENERATOR.nextId(dst, off);
     }
 
     /**
-     * Validator id.
+     * Generate a new unique id (20size) in hex ASCII into the bytes, without
+     * building chars or a String.
+     *
+     * @param dst the destination bytes.
+     * @param off where to write the first byte.
+     * @return the offset after the last written byte.
+     */
+    public static int nextId(final byte[] dst, final int off) {
+        return GENERATOR.nextId(dst, off);
+    }
+
+    /**
+     * Generate a new unique id (20size) in hex ASCII at the position of the
+     * buffer, heap or direct, e.g. a network frame.
+     *
+     * @param dst the buffer, its position is moved past the id.
+     * @return the buffer.
+     */
+    public static ByteBuffer nextId(final ByteBuffer dst) {
+        return GENERATOR.nextId(dst);
+    }
+
+    /**
+     * Generate a new unique id (20size) in hex ASCII and write it to the
+     * stream.
+     *
+     * @param out the stream.
+     * @throws IOException if the stream fails.
+     */
+    public static void nextId(final OutputStream out) throws IOException {
+        GENERATOR.nextId(out);
+    }
+
+    /**
+     * Generate a new unique id (20size) and append it to the builder, without any
+     * allocation (unless the builder needs to grow).
+     *
+     * @param sb the builder to append to.
+     * @return the builder.
+     */
+    public static StringBuilder nextId(final StringBuilder sb) {
+        return GENERATOR.nextId(sb);
+    }
+
+    /**
+     * Generate a new unique id in a text encoding, e.g. IdEncoding.BASE32 (16
+     * chars) or IdEncoding.BASE62 (14 chars). The text order of the ids is the
+     * order of nextId(). Pre-generated ids are not used.
+     *
+     * @param encoding the encoding.
+     * @return distributed unique id
+     */
+    public static String nextId(final IdEncoding encoding) {
+        return GENERATOR.nextId(encoding);
+    }
+
+    /**
+     * Generate a new unique id in binary, it renders the same hex as nextId().
+     *
+     * @return distributed unique id
+     */
+    public static BinaryId nextBinaryId() {
+        return GENERATOR.nextBinaryId();
+    }
+
+    /**
+     * Generate a new unique 64-bit id, without boxing or allocation. See
+     * LongIdLayout for how the bits are spent and how the machine id is mapped.
+     *
+     * @return distributed unique id
+     * @throws IllegalStateException if the machine id does not fit in the
+     *                               machine bits of the layout.
+     */
+    public static long nextLongId() {
+        return GENERATOR.nextLongId();
+    }
+
+    /**
+     * Set the bit budget of nextLongId(), the default is LongIdLayout.DEFAULT.
+     * Set it before generating ids.
+     *
+     * @param layout the layout.
+     */
+    public static void setLongIdLayout(LongIdLayout layout) {
+        GENERATOR.setLongIdLayout(layout);
+    }
+
+    /**
+     * Get the bit budget of nextLongId().
+     *
+     * @return the layout.
+     */
+    public static LongIdLayout getLongIdLayout() {
+        return GENERATOR.getLongIdLayout();
+    }
+
+    /**
+     * Generate n new unique ids (20size). The counters are reserved at once and
+     * all ids are rendered into one shared buffer.
+     * With OverflowPolicy.WRAP more than 2^24 ids in a second repeat ids, use
+     * BORROW or PARK if they must be unique.
+     *
+     * @param n how many ids to generate.
+     * @return distributed unique ids
+     */
+    public static String[] nextIds(final int n) {
+        return GENERATOR.nextIds(n);
+    }
+
+    /**
+     * Fill the array with new unique ids (20size). The counters are reserved at
+     * once and all ids are rendered into one shared buffer.
+     * With OverflowPolicy.WRAP more than 2^24 ids in a second repeat ids, use
+     * BORROW or PARK if they must be unique.
+     *
+     * @param dst the array to fill.
+     * @return dst
+     */
+    public static String[] nextIds(final String[] dst) {
+        return GENERATOR.nextIds(dst);
+    }
+
+    /**
+     * A stream of count new unique ids (20size), for bulk jobs. It splits for
+     * parallel(): every split claims chunks of counters with a single atomic
+     * operation and renders them without shared state.
+     *
+     * @param count how many ids.
+     * @return the ids, not ordered.
+     */
+    public static Stream<String> idStream(final long count) {
+        return GENERATOR.idStream(count);
+    }
+
+    /**
+     * A stream of count new unique ids in binary, like idStream().
+     *
+     * @param count how many ids.
+     * @return the ids, not ordered.
+     */
+    public static Stream<BinaryId> binaryIdStream(final long count) {
+        return GENERATOR.binaryIdStream(count);
+    }
+
+    /**
+     * A stream of count new unique 64-bit ids of the LongIdLayout, without
+     * boxing, like idStream().
+     *
+     * @param count how many ids.
+     * @return the ids, not ordered.
+     */
+    public static LongStream longIdStream(final long count) {
+        return GENERATOR.longIdStream(count);
+    }
+
+    /**
+     * Read the timestamp, machine id and counter of an id.
+     *
+     * @param id a hex id of 20 (no pid) or 24 (with pid) chars.
+     * @return the id in binary, with the accessors of the parts.
+     * @throws IllegalArgumentException if it is not a hex id.
+     */
+    public static BinaryId decode(final CharSequence id) {
+        return BinaryId.parse(id);
+    }
+
+    /**
+     * Read the timestamp, machine id and counter of an id of a text encoding.
+     *
+     * @param id       an id of the encoding, of either layout.
+     * @param encoding the encoding.
+     * @return the id in binary, with the accessors of the parts.
+     * @throws IllegalArgumentException if it is not an id of the encoding.
+     */
+    public static BinaryId decode(final CharSequence id, final IdEncoding encoding) {
+        if (null == encoding) {
+            throw new IllegalArgumentException("encoding is null");
+        }
+        return encoding.decode(id);
+    }
+
+    /**
+     * The smallest id of nextId() in the second of an instant, so that the ids
+     * between two times are a range scan on a primary key:
+     * `id BETWEEN minIdForTime(from) AND maxIdForTime(to)`.
+     *
+     * @param time the time, only the seconds are kept.
+     * @return the 20-char hex id.
+     */
+    public static String minIdForTime(final Instant time) {
+        return BinaryId.minForTime(time).toHexString();
+    }
+
+    /**
+     * The largest id of nextId() in the second of an instant.
+     *
+     * @param time the time, only the seconds are kept.
+     * @return the 20-char hex id.
+     */
+    public static String maxIdForTime(final Instant time) {
+        return BinaryId.maxForTime(time).toHexString();
+    }
+
+    /**
+     * The smallest id of nextId(encoding) in the second of an instant.
+     *
+     * @param time     the time, only the seconds are kept.
+     * @param encoding the encoding.
+     * @return the id in the encoding.
+     */
+    public static String minIdForTime(final Instant time, final IdEncoding encoding) {
+        if (null == encoding) {
+            throw new IllegalArgumentException("encoding is null");
+        }
+        return encoding.encode(BinaryId.minForTime(time));
+    }
+
+    /**
+     * The largest id of nextId(encoding) in the second of an instant.
+     *
+     * @param time     the time, only the seconds are kept.
+     * @param encoding the encoding.
+     * @return the id in the encoding.
+     */
+    public static String maxIdForTime(final Instant time, final IdEncoding encoding) {
+        if (null == encoding) {
+            throw new IllegalArgumentException("encoding is null");
+        }
+        return encoding.encode(BinaryId.maxForTime(time));
+    }
+
+    /**
+     * The smallest id of nextLongId() in the second of an instant.
+     *
+     * @param time the time, only the seconds are kept.
+     * @return the 64-bit id.
+     */
+    public static long minLongIdForTime(final Instant time) {
+        return GENERATOR.getLongIdLayout().minIdForSecond(time.getEpochSecond());
+    }
+
+    /**
+     * The largest id of nextLongId() in the second of an instant.
+     *
+     * @param time the time, only the seconds are kept.
+     * @return the 64-bit id.
+     */
+    public static long maxLongIdForTime(final Instant time) {
+        return GENERATOR.getLongIdLayout().maxIdForSecond(time.getEpochSecond());
+    }
+
+    /**
+     * Validator id: 20 lowercase hex digits. See IdValidator for bulk checks of
+     * bytes and buffers, and for a plausible time.
      * 
      * @param ids id array.
      * @return whether ids is valid.
      */
     public static boolean isValid(final String... ids) {
-        for (int i = 0; i < ids.length; i++) {
-            String id = ids[i];
-            if (null == id || id.length() != ID_LENGTH) {
-                return false;
-            }
+        return IdValidator.NOPID.isValid(ids);
+    }
 
-            for (int j = 0; j < id.length(); j++) {
-                char c = id.charAt(j);
-                if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'z'))) {
-                    return false;
-                }
+    /**
+     * Validator id of nextId(encoding), as the encoding renders it.
+     *
+     * @param encoding the encoding.
+     * @param ids      id array.
+     * @return whether ids is valid.
+     */
+    public static boolean isValid(final IdEncoding encoding, final String... ids) {
+        if (null == encoding) {
+            throw new IllegalArgumentException("encoding is null");
+        }
+        if (null == ids) {
+            return false;
+        }
+        for (String id : ids) {
+            if (!encoding.isValid(id, ObjectId.OBJECT_ID_LENGTH_NOPID)) {
+                return false;
             }
         }
-
         return true;
     }
 }
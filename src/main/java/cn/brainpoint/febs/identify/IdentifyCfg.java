@@ -15,10 +15,17 @@ import lombok.Data;
 @Data
 public class IdentifyCfg {
 
+    /** the table when tablename is not set. **/
+    public static final String DEFAULT_TABLENAME = "_distribute_machineId";
+    /** the slot table of leases is tablename + this. **/
+    public static final String LEASE_TABLE_SUFFIX = "_lease";
+    /** the slots when slotCount is not set. **/
+    public static final int DEFAULT_SLOT_COUNT = 4095;
+
     protected IdentifyCfg() {}
 
     /**
-     * @param type e.g. mysql
+     * @param type mysql, h2, postgresql, or file
      * @param url e.g. localhost:3306/xx
      * @param username the username of database.
      * @param password the password.
@@ -33,7 +40,7 @@ public class IdentifyCfg {
         this.connectTimeout = 0;
     }
     /**
-     * @param type e.g. mysql
+     * @param type mysql, h2, postgresql, or file
      * @param url e.g. localhost:3306/xx
      * @param username the username of database.
      * @param password the password.
@@ -52,22 +59,49 @@ public class IdentifyCfg {
     }
 
     public String getDriver() {
-        if (this.type.equals("mysql")) {
+        if ("mysql".equals(this.type)) {
             return "com.mysql.cj.jdbc.Driver";
         }
-        throw new RuntimeException("only support mysql");
+        if ("h2".equals(this.type)) {
+            return "org.h2.Driver";
+        }
+        if ("postgresql".equals(this.type)) {
+            return "org.postgresql.Driver";
+        }
+        throw new RuntimeException("unsupported type: " + this.type);
     }
 
     public String getUri() {
-        if (this.type.equals("mysql")) {
+        if ("mysql".equals(this.type)) {
             return "jdbc:mysql://" + this.url + "?autoReconnect=true&autoReconnectForPools=true";
         }
-        throw new RuntimeException("only support mysql");
+        if ("h2".equals(this.type)) {
+            return "jdbc:h2:" + this.url;
+        }
+        if ("postgresql".equals(this.type)) {
+            return "jdbc:postgresql://" + this.url;
+        }
+        throw new RuntimeException("unsupported type: " + this.type);
+    }
+
+    /**
+     * @return the table name, or DEFAULT_TABLENAME if it is not set.
+     */
+    public String resolveTablename() {
+        String name = null == this.tablename ? null : this.tablename.trim();
+        return null == name || name.length() == 0 ? DEFAULT_TABLENAME : name;
+    }
+
+    /**
+     * @return the slot count, or DEFAULT_SLOT_COUNT if it is not set.
+     */
+    public int resolveSlotCount() {
+        return this.slotCount <= 0 ? DEFAULT_SLOT_COUNT : Math.min(this.slotCount, 0x00fffffe);
     }
 
-    /** db type; e.g. mysql **/
+    /** db type; mysql, h2, postgresql, or file **/
     protected String type;
-    /** db url; e.g. localhost:3306/xx **/
+    /** db url; e.g. localhost:3306/xx; a directory with type file **/
     protected String url;
     /** the username of database. **/
     protected String username;
@@ -78,4 +112,14 @@ public class IdentifyCfg {
     protected int retryCount;
     /** connect timeout in milliseconds. **/
     protected int connectTimeout;
+    /** lease the machine id for so many seconds and keep renewing it; 0 to take a new id from an auto-increment. **/
+    protected int leaseSeconds;
+    /** with a lease, the machine ids are 1..slotCount; default 4095, at most 2^machineBits - 1 for nextLongId(). **/
+    protected int slotCount;
+    /** with a lease, keep it in this local file, so a restart can resume it without the database. **/
+    protected String stateFile;
+    /** mysql by plain JDBC instead of MyBatis; always so when MyBatis is not on the classpath. **/
+    protected boolean plainJdbc;
+    /** initializeAsync() gives up after so many milliseconds; default 60000. **/
+    protected int connectDeadline;
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/18 10:05
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+/**
+ * Whether Identify has a machine id to generate ids with.
+ */
+public enum IdentifyState {
+    /**
+     * no machine id: not initialized yet, or it was released.
+     */
+    NOT_INITIALIZED,
+    /**
+     * taking a machine id, e.g. initializeAsync() is retrying to connect.
+     */
+    INITIALIZING,
+    /**
+     * ids can be generated.
+     */
+    READY,
+    /**
+     * the last initialization failed, no machine id.
+     */
+    FAILED,
+    /**
+     * the lease of the machine id could not be renewed before it expires, or
+     * was lost; no ids until it is renewed or a new one is leased.
+     */
+    SUSPENDED
+}
@@ -0,0 +1,134 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/10 14:12
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+import lombok.Getter;
+
+/**
+ * The bit budget of a 64-bit id: the sign bit is always 0, followed by the
+ * seconds since a custom epoch, a slice of the machine id, and a sequence
+ * within the second. The three parts must add up to 63 bits.
+ *
+ * The machine id (up to 3 bytes) must fit in the smaller field: nextLongId()
+ * throws IllegalStateException for a machine id above getMaxMachineId(), as
+ * keeping its low bits would give two processes the same ids. Keep the machine
+ * ids in use below 2^machineBits, e.g. by leasing them with IdentifyCfg.slotCount
+ * at most 2^machineBits - 1 (4095 for DEFAULT), rather than taking them from an
+ * auto-increment that grows.
+ *
+ * The default layout is 31 bits of seconds since 2020-01-01 (until 2088), 12
+ * bits of machine id (4096 processes) and 20 bits of sequence (1048576 ids a
+ * second per process).
+ */
+@Getter
+public final class LongIdLayout {
+
+    /**
+     * 2020-01-01T00:00:00Z
+     */
+    public static final long DEFAULT_EPOCH_SECONDS = 1577836800L;
+    public static final LongIdLayout DEFAULT = new LongIdLayout(31, 12, 20, DEFAULT_EPOCH_SECONDS);
+
+    /** bits of seconds since the epoch. **/
+    private final int timeBits;
+    /** bits of the machine id. **/
+    private final int machineBits;
+    /** bits of the sequence in a second. **/
+    private final int sequenceBits;
+    /** the epoch in seconds since the Unix epoch. **/
+    private final long epochSeconds;
+
+    /**
+     * @param timeBits     bits of seconds since the epoch.
+     * @param machineBits  bits of the machine id, at most 24.
+     * @param sequenceBits bits of the sequence in a second, at most 31.
+     * @param epochSeconds the epoch in seconds since the Unix epoch.
+     */
+    public LongIdLayout(int timeBits, int machineBits, int sequenceBits, long epochSeconds) {
+        if (timeBits <= 0 || machineBits < 0 || machineBits > 24 || sequenceBits <= 0 || sequenceBits > 31) {
+            throw new IllegalArgumentException("invalid bits");
+        }
+        if (timeBits + machineBits + sequenceBits != 63) {
+            throw new IllegalArgumentException("timeBits + machineBits + sequenceBits must be 63");
+        }
+        this.timeBits = timeBits;
+        this.machineBits = machineBits;
+        this.sequenceBits = sequenceBits;
+        this.epochSeconds = epochSeconds;
+    }
+
+    /**
+     * @return the largest machine id that fits the layout without folding.
+     */
+    public int getMaxMachineId() {
+        return (1 << machineBits) - 1;
+    }
+
+    /**
+     * @return how many ids a process can issue in a second.
+     */
+    public long getSequencesPerSecond() {
+        return 1L << sequenceBits;
+    }
+
+    /**
+     * @param id an id of the layout.
+     * @return its seconds since the Unix epoch.
+     */
+    public long secondOf(long id) {
+        return (id >>> (machineBits + sequenceBits)) + epochSeconds;
+    }
+
+    /**
+     * @param id an id of the layout.
+     * @return its machine id, the low machineBits of the one that issued it.
+     */
+    public int machineIdOf(long id) {
+        return (int) (id >>> sequenceBits) & getMaxMachineId();
+    }
+
+    /**
+     * @param id an id of the layout.
+     * @return its sequence in the second.
+     */
+    public long sequenceOf(long id) {
+        return id & ((1L << sequenceBits) - 1);
+    }
+
+    /**
+     * @param second seconds since the Unix epoch.
+     * @return the smallest id of the second.
+     */
+    public long minIdForSecond(long second) {
+        return compose(second, 0, 0);
+    }
+
+    /**
+     * @param second seconds since the Unix epoch.
+     * @return the largest id of the second.
+     */
+    public long maxIdForSecond(long second) {
+        return compose(second, -1, -1);
+    }
+
+    /**
+     * Compose an id.
+     *
+     * @param second    seconds since the Unix epoch.
+     * @param machineId the machine id, only the low machineBits are kept.
+     * @param sequence  the sequence in the second.
+     * @return the id.
+     */
+    public long compose(long second, int machineId, long sequence) {
+        long time = second - epochSeconds;
+        if (time < 0 || time >= (1L << timeBits)) {
+            throw new IllegalStateException("The time is out of the range of the layout.");
+        }
+        return (time << (machineBits + sequenceBits)) | ((long) (machineId & getMaxMachineId()) << sequenceBits)
+                | (sequence & ((1L << sequenceBits) - 1));
+    }
+}
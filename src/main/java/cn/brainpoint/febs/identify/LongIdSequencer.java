@@ -0,0 +1,77 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/10 15:01
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+/**
+ * Issue 64-bit ids of a layout. The sequence of every second is counted from
+ * 0, so the ids of a process grow with time.
+ *
+ * The seconds come from the Sequencer of the ObjectIds: the same clock and
+ * ClockRegressionPolicy, a used up second borrows ahead or parks by its
+ * OverflowPolicy (WRAP borrows like BORROW), and the ids, borrows, parks and
+ * regressions are counted in its metrics. Like Sequencer, the top bits of the
+ * sequence may be fixed to a prefix.
+ */
+final class LongIdSequencer {
+
+    private final Sequencer sequencer;
+    private final LongIdLayout layout;
+    private final SecondSequence seconds;
+    private final long sequencePrefix;
+
+    LongIdSequencer(final Sequencer sequencer, final LongIdLayout layout) {
+        this(sequencer, layout, 0, 0);
+    }
+
+    /**
+     * @param sequencer  the Sequencer of the ObjectIds.
+     * @param layout     the layout.
+     * @param prefixBits how many top bits of the sequence are the prefix.
+     * @param prefix     the value of the top bits.
+     */
+    LongIdSequencer(final Sequencer sequencer, final LongIdLayout layout, final int prefixBits, final int prefix) {
+        if (prefixBits < 0 || prefixBits >= layout.getSequenceBits()) {
+            throw new IllegalArgumentException("prefixBits must be less than the sequence bits of the layout");
+        }
+        this.sequencer = sequencer;
+        this.layout = layout;
+        this.seconds = new SecondSequence(layout.getSequencesPerSecond() >>> prefixBits);
+        this.sequencePrefix = (long) prefix << (layout.getSequenceBits() - prefixBits);
+    }
+
+    LongIdLayout getLayout() {
+        return layout;
+    }
+
+    long next(final int machineId) {
+        long reserved = reserve(1);
+        return compose(reserved >>> 32, machineId, reserved & 0xffffffffL);
+    }
+
+    /**
+     * @param sequence a sequence of reserve().
+     */
+    long compose(final long second, final int machineId, final long sequence) {
+        return layout.compose(second, machineId, sequencePrefix | sequence);
+    }
+
+    /**
+     * Reserve up to n sequences of a second with a single atomic operation.
+     *
+     * @return second &lt;&lt; 32 | the first sequence; the number reserved is
+     *         granted(result, n).
+     */
+    long reserve(final int n) {
+        long reserved = sequencer.reserve(seconds, sequencer.currentSecond(), n);
+        sequencer.countIssued(granted(reserved, n));
+        return reserved;
+    }
+
+    int granted(final long reserved, final int n) {
+        return seconds.granted(reserved, n);
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/21 11:05
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+
+/**
+ * A fixed number of new 64-bit ids for a LongStream, split for parallel
+ * pipelines like IdSpliterator: every chunk of sequences is claimed with a
+ * single atomic operation and composed without shared state.
+ */
+final class LongIdSpliterator implements Spliterator.OfLong {
+
+    private static final int CHUNK = IdSpliterator.CHUNK;
+
+    private final LongIdSequencer sequencer;
+    private final int machineId;
+    private long unclaimed;
+    private long second;
+    private long sequence;
+    private int left;
+
+    LongIdSpliterator(final LongIdSequencer sequencer, final int machineId, final long count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative");
+        }
+        this.sequencer = sequencer;
+        this.machineId = machineId;
+        this.unclaimed = count;
+    }
+
+    private boolean claim() {
+        if (unclaimed == 0) {
+            return false;
+        }
+        int n = (int) Math.min(unclaimed, CHUNK);
+        long reserved = sequencer.reserve(n);
+        second = reserved >>> 32;
+        sequence = reserved & 0xffffffffL;
+        left = sequencer.granted(reserved, n);
+        unclaimed -= left;
+        return true;
+    }
+
+    @Override
+    public boolean tryAdvance(final LongConsumer action) {
+        if (left == 0 && !claim()) {
+            return false;
+        }
+        left--;
+        action.accept(sequencer.compose(second, machineId, sequence++));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(final LongConsumer action) {
+        do {
+            for (; left > 0; left--) {
+                action.accept(sequencer.compose(second, machineId, sequence++));
+            }
+        } while (claim());
+    }
+
+    @Override
+    public Spliterator.OfLong trySplit() {
+        if (unclaimed < CHUNK * 2L) {
+            return null;
+        }
+        long half = unclaimed >>> 1;
+        unclaimed -= half;
+        return new LongIdSpliterator(sequencer, machineId, half);
+    }
+
+    @Override
+    public long estimateSize() {
+        return unclaimed + left;
+    }
+
+    @Override
+    public int characteristics() {
+        return SIZED | SUBSIZED | DISTINCT | NONNULL | IMMUTABLE;
+    }
+}
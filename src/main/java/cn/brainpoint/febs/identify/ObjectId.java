@@ -16,10 +16,9 @@
 
 package cn.brainpoint.febs.identify;
 
+import cn.brainpoint.febs.identify.clock.IdClock;
+
 import java.nio.ByteBuffer;
-import java.security.SecureRandom;
-import java.util.Date;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * ObjectId no container PID: a 4-byte value representing the seconds since the
@@ -28,26 +27,143 @@ import java.util.concurrent.atomic.AtomicInteger;
  *
  * &lt;no container pid, must to use database to manager machineId.&gt;
  *
+ * Only static generators, an id as a value is a BinaryId.
  */
 public final class ObjectId {
 
     public static final int OBJECT_ID_LENGTH = 12;
     public static final int OBJECT_ID_LENGTH_NOPID = 10;
 
-    private static final int LOW_ORDER_THREE_BYTES = 0x00ffffff;
+    /**
+     * the most counters can be reserved at once, a whole 3-byte counter space.
+     */
+    static final int MAX_RESERVE = Sequencer.MAX_RESERVE;
 
-    private static final AtomicInteger NEXT_COUNTER = new AtomicInteger(new SecureRandom().nextInt());
+    /**
+     * the counters of the static methods, and of IdGenerator.getDefault().
+     */
+    static final Sequencer SEQUENCER = new Sequencer();
 
-    private static final char[] HEX_CHARS = new char[] { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b',
-            'c', 'd', 'e', 'f' };
+    /**
+     * Set the time source of ids, the default is SystemIdClock.
+     *
+     * @param idClock the clock.
+     */
+    public static void setClock(final IdClock idClock) {
+        if (null == idClock) {
+            throw new IllegalArgumentException("clock is null");
+        }
+        SEQUENCER.setClock(idClock);
+    }
 
-    private static long preTimestamp = 0;
+    /**
+     * Get the time source of ids.
+     *
+     * @return the clock.
+     */
+    public static IdClock getClock() {
+        return SEQUENCER.getClock();
+    }
 
-    private final int timestamp;
-    private final int counter;
-    private final int randomValue1;
-    private final short randomValue2;
-    private final boolean noRandomValue2;
+    /**
+     * Set what to do when the 3-byte counter space of a second is used up, the
+     * default is OverflowPolicy.WRAP. Set it before generating ids, the
+     * policies count the counters of a second differently.
+     *
+     * @param policy           the policy.
+     * @param maxBorrowSeconds with OverflowPolicy.BORROW, how many seconds ids
+     *                         may run ahead of the clock.
+     */
+    public static void setOverflowPolicy(final OverflowPolicy policy, final int maxBorrowSeconds) {
+        if (null == policy) {
+            throw new IllegalArgumentException("policy is null");
+        }
+        if (maxBorrowSeconds < 0) {
+            throw new IllegalArgumentException("maxBorrowSeconds must not be negative");
+        }
+        SEQUENCER.setOverflowPolicy(policy, maxBorrowSeconds);
+    }
+
+    /**
+     * Get what to do when the 3-byte counter space of a second is used up.
+     *
+     * @return the policy.
+     */
+    public static OverflowPolicy getOverflowPolicy() {
+        return SEQUENCER.getOverflowPolicy();
+    }
+
+    /**
+     * Issue the ids of this process strictly increasing (in bytes and in hex):
+     * the counter of every second starts from 0 and never wraps, a used up
+     * second borrows ahead of the clock like OverflowPolicy.BORROW, or waits
+     * with OverflowPolicy.PARK. Every id takes a CAS on a shared state. Set it
+     * before generating ids.
+     *
+     * @param monotonic whether to issue strictly increasing ids.
+     */
+    public static void setMonotonic(final boolean monotonic) {
+        SEQUENCER.setMonotonic(monotonic);
+    }
+
+    /**
+     * @return whether the ids are strictly increasing.
+     */
+    public static boolean isMonotonic() {
+        return SEQUENCER.isMonotonic();
+    }
+
+    /**
+     * Set what to do when the clock goes back, the default is
+     * ClockRegressionPolicy.REJECT.
+     *
+     * @param policy the policy.
+     */
+    public static void setClockRegressionPolicy(final ClockRegressionPolicy policy) {
+        if (null == policy) {
+            throw new IllegalArgumentException("policy is null");
+        }
+        SEQUENCER.setClockRegressionPolicy(policy);
+    }
+
+    /**
+     * Get what to do when the clock goes back.
+     *
+     * @return the policy.
+     */
+    public static ClockRegressionPolicy getClockRegressionPolicy() {
+        return SEQUENCER.getClockRegressionPolicy();
+    }
+
+    /**
+     * Be told when the clock goes back.
+     *
+     * @param listener the listener, or null to remove it.
+     */
+    public static void setClockRegressionListener(final ClockRegressionListener listener) {
+        SEQUENCER.setClockRegressionListener(listener);
+    }
+
+    /**
+     * @return how many times the clock was detected going back.
+     */
+    public static long getClockRegressionCount() {
+        return SEQUENCER.getClockRegressionCount();
+    }
+
+    /**
+     * @return how many times a used up second was borrowed ahead of the clock.
+     */
+    public static long getBorrowCount() {
+        return SEQUENCER.getBorrowCount();
+    }
+
+    /**
+     * @return how many times a caller was parked on a used up second.
+     */
+    public static long getParkCount() {
+        return SEQUENCER.getParkCount();
+    }
 
     /**
      * Generate a objectID in hex string.
@@ -61,8 +177,30 @@ public final class ObjectId {
      * @return objectID in hex string
      */
     public static String generateHex(final int machineId, final short pid) {
-        ObjectId id = new ObjectId(new Date(), machineId, pid);
-        return id.toHexString();
+        char[] chars = new char[OBJECT_ID_LENGTH * 2];
+        generateHex(machineId, pid, chars, 0);
+        return new String(chars);
+    }
+
+    /**
+     * Generate a objectID in hex and write it to the chars, without any
+     * allocation.
+     *
+     * @param machineId use this machine_id to make distributed unique id.
+     * @param pid       use this pid.
+     * @param dst       the destination chars.
+     * @param off       where to write the first char.
+     * @throws IllegalArgumentException if dst has less than 24 chars after off.
+     */
+    public static void generateHex(final int machineId, final short pid, final char[] dst, final int off) {
+        checkRemaining(dst, off, OBJECT_ID_LENGTH * 2);
+        checkMachineId(machineId);
+
+        long next = SEQUENCER.next();
+        int i = Hex.put(dst, off, (int) (next >>> 32), 4);
+        i = Hex.put(dst, i, machineId, 3);
+        i = Hex.put(dst, i, pid, 2);
+        Hex.put(dst, i, (int) next, 3);
     }
 
     /**
@@ -75,163 +213,323 @@ public final class ObjectId {
      * @return objectID (no container pid) in hex string
      */
     public static String generateHexNoPID(final int machineId) {
-        ObjectId id = new ObjectId(new Date(), machineId);
-        return id.toHexString();
+        char[] chars = new char[OBJECT_ID_LENGTH_NOPID * 2];
+        generateHexNoPID(machineId, chars, 0);
+        return new String(chars);
     }
 
-    private ObjectId(final Date date, final int machineId) {
+    /**
+     * Generate a objectID (no container pid) in hex and write it to the chars,
+     * without any allocation.
+     *
+     * @param machineId use this machine_id to make distributed unique id.
+     * @param dst       the destination chars.
+     * @param off       where to write the first char.
+     * @throws IllegalArgumentException if dst has less than 20 chars after off.
+     */
+    public static void generateHexNoPID(final int machineId, final char[] dst, final int off) {
+        generateHexNoPID(SEQUENCER, machineId, dst, off);
+    }
 
-        if (ObjectId.preTimestamp > date.getTime()) {
-            throw new IllegalArgumentException("The 'date' must bigger then pre-time.");
+    static void generateHexNoPID(final Sequencer sequencer, final int machineId, final char[] dst, final int off) {
+        checkRemaining(dst, off, OBJECT_ID_LENGTH_NOPID * 2);
+        checkMachineId(machineId);
+        if (machineId == 0) {
+            throw new IllegalArgumentException("Need a machine id.");
         }
-        ObjectId.preTimestamp = date.getTime();
 
-        if ((machineId & 0xff000000) != 0) {
-            throw new IllegalArgumentException(
-                    "The machine identifier must be between 0 and 16777214 (it must fit in three bytes).");
-        }
+        long next = sequencer.next();
+        int i = Hex.put(dst, off, (int) (next >>> 32), 4);
+        i = Hex.put(dst, i, machineId, 3);
+        Hex.put(dst, i, (int) next, 3);
+    }
+
+    /**
+     * Generate a objectID in hex ASCII and write it to the bytes, without
+     * building chars or a String.
+     *
+     * @param machineId use this machine_id to make distributed unique id.
+     * @param pid       use this pid.
+     * @param dst       the destination bytes.
+     * @param off       where to write the first byte.
+     * @throws IllegalArgumentException if dst has less than 24 bytes after off.
+     */
+    public static void generateHex(final int machineId, final short pid, final byte[] dst, final int off) {
+        checkRemaining(dst, off, OBJECT_ID_LENGTH * 2);
+        checkMachineId(machineId);
+
+        long next = SEQUENCER.next();
+        int i = Hex.put(dst, off, next >>> 32, 4);
+        i = Hex.put(dst, i, machineId, 3);
+        i = Hex.put(dst, i, pid, 2);
+        Hex.put(dst, i, next, 3);
+    }
+
+    /**
+     * Generate a objectID in hex ASCII and put it at the position of the
+     * buffer, heap or direct, without building chars or a String.
+     *
+     * @param machineId use this machine_id to make distributed unique id.
+     * @param pid       use this pid.
+     * @param dst       the buffer, its position is moved past the id.
+     * @throws IllegalArgumentException if dst has less than 24 bytes remaining.
+     */
+    public static void generateHex(final int machineId, final short pid, final ByteBuffer dst) {
+        checkRemaining(dst, OBJECT_ID_LENGTH * 2);
+        checkMachineId(machineId);
+
+        long next = SEQUENCER.next();
+        Hex.put(dst, next >>> 32, 4);
+        Hex.put(dst, machineId, 3);
+        Hex.put(dst, pid, 2);
+        Hex.put(dst, next, 3);
+    }
+
+    /**
+     * Generate a objectID (no container pid) in hex ASCII and write it to the
+     * bytes, without building chars or a String.
+     *
+     * @param machineId use this machine_id to make distributed unique id.
+     * @param dst       the destination bytes.
+     * @param off       where to write the first byte.
+     * @throws IllegalArgumentException if dst has less than 20 bytes after off.
+     */
+    public static void generateHexNoPID(final int machineId, final byte[] dst, final int off) {
+        generateHexNoPID(SEQUENCER, machineId, dst, off);
+    }
+
+    static void generateHexNoPID(final Sequencer sequencer, final int machineId, final byte[] dst, final int off) {
+        checkRemaining(dst, off, OBJECT_ID_LENGTH_NOPID * 2);
+        checkMachineId(machineId);
         if (machineId == 0) {
             throw new IllegalArgumentException("Need a machine id.");
         }
 
-        int inc = NEXT_COUNTER.getAndIncrement();
-        if (inc > LOW_ORDER_THREE_BYTES) {
-            NEXT_COUNTER.set(0);
-            inc = NEXT_COUNTER.getAndIncrement();
+        long next = sequencer.next();
+        int i = Hex.put(dst, off, next >>> 32, 4);
+        i = Hex.put(dst, i, machineId, 3);
+        Hex.put(dst, i, next, 3);
+    }
+
+    /**
+     * Generate a objectID (no container pid) in hex ASCII and put it at the
+     * position of the buffer, heap or direct, without building chars or a
+     * String.
+     *
+     * @param machineId use this machine_id to make distributed unique id.
+     * @param dst       the buffer, its position is moved past the id.
+     * @throws IllegalArgumentException if dst has less than 20 bytes remaining.
+     */
+    public static void generateHexNoPID(final int machineId, final ByteBuffer dst) {
+        generateHexNoPID(SEQUENCER, machineId, dst);
+    }
+
+    static void generateHexNoPID(final Sequencer sequencer, final int machineId, final ByteBuffer dst) {
+        checkRemaining(dst, OBJECT_ID_LENGTH_NOPID * 2);
+        checkMachineId(machineId);
+        if (machineId == 0) {
+            throw new IllegalArgumentException("Need a machine id.");
         }
 
-        this.timestamp = (int) (date.getTime() / 1000);
-        this.counter = inc & LOW_ORDER_THREE_BYTES;
-        this.randomValue1 = machineId;
-        this.randomValue2 = 0;
-        this.noRandomValue2 = true;
+        long next = sequencer.next();
+        Hex.put(dst, next >>> 32, 4);
+        Hex.put(dst, machineId, 3);
+        Hex.put(dst, next, 3);
     }
 
-    private ObjectId(final Date date, final int machineId, final short pid) {
+    /**
+     * Generate a objectID in binary.
+     *
+     * @param machineId use this machine_id to make distributed unique id.
+     * @param pid       use this pid.
+     * @return objectID in binary
+     */
+    public static BinaryId generateBinary(final int machineId, final short pid) {
+        checkMachineId(machineId);
 
-        if (ObjectId.preTimestamp > date.getTime()) {
-            throw new IllegalArgumentException("The 'date' must bigger then pre-time.");
-        }
-        ObjectId.preTimestamp = date.getTime();
-        
-        if ((machineId & 0xff000000) != 0) {
-            throw new IllegalArgumentException(
-                    "The machine identifier must be between 0 and 16777214 (it must fit in three bytes).");
-        }
+        long next = SEQUENCER.next();
+        long high = (next & 0xffffffff00000000L) | ((long) machineId << 8) | ((pid >>> 8) & 0xff);
+        int low = ((pid & 0xff) << 24) | ((int) next & 0x00ffffff);
+        return new BinaryId(high, low, OBJECT_ID_LENGTH);
+    }
+
+    /**
+     * Generate a objectID (no container pid) in binary.
+     *
+     * @param machineId use this machine_id to make distributed unique id.
+     * @return objectID (no container pid) in binary
+     */
+    public static BinaryId generateBinaryNoPID(final int machineId) {
+        return generateBinaryNoPID(SEQUENCER, machineId);
+    }
 
-        int inc = NEXT_COUNTER.getAndIncrement();
-        if (inc > LOW_ORDER_THREE_BYTES) {
-            NEXT_COUNTER.set(0);
-            inc = NEXT_COUNTER.getAndIncrement();
+    static BinaryId generateBinaryNoPID(final Sequencer sequencer, final int machineId) {
+        checkMachineId(machineId);
+        if (machineId == 0) {
+            throw new IllegalArgumentException("Need a machine id.");
         }
 
-        this.timestamp = (int) (date.getTime() / 1000);
-        this.counter = inc & LOW_ORDER_THREE_BYTES;
-        this.randomValue1 = machineId;
-        this.randomValue2 = pid;
-        this.noRandomValue2 = false;
+        long next = sequencer.next();
+        int counter = (int) next;
+        long high = (next & 0xffffffff00000000L) | ((long) machineId << 8) | (counter >>> 16);
+        return new BinaryId(high, counter & 0xffff, OBJECT_ID_LENGTH_NOPID);
     }
 
     /**
-     * Convert to a byte array. Note that the numbers are stored in big-endian
-     * order.
+     * Generate a objectID in a text encoding, e.g. IdEncoding.BASE32.
      *
-     * @return the byte array
+     * @param machineId use this machine_id to make distributed unique id.
+     * @param pid       use this pid.
+     * @param encoding  the encoding.
+     * @return objectID in the encoding
      */
-    public byte[] toByteArray() {
-        ByteBuffer buffer = null;
-        if (this.noRandomValue2) {
-            buffer = ByteBuffer.allocate(OBJECT_ID_LENGTH_NOPID);
-        } else {
-            buffer = ByteBuffer.allocate(OBJECT_ID_LENGTH);
+    public static String generate(final int machineId, final short pid, final IdEncoding encoding) {
+        if (null == encoding) {
+            throw new IllegalArgumentException("encoding is null");
         }
-        putToByteBuffer(buffer);
-        return buffer.array(); // using .allocate ensures there is a backing array that can be returned
+        checkMachineId(machineId);
+
+        long next = SEQUENCER.next();
+        long high = (next & 0xffffffff00000000L) | ((long) machineId << 8) | ((pid >>> 8) & 0xff);
+        int low = ((pid & 0xff) << 24) | ((int) next & 0x00ffffff);
+        return encoding.encode(high, low, OBJECT_ID_LENGTH);
     }
 
     /**
-     * Convert to bytes and put those bytes to the provided ByteBuffer. Note that
-     * the numbers are stored in big-endian order.
+     * Generate a objectID (no container pid) in a text encoding, e.g.
+     * IdEncoding.BASE32.
      *
-     * @param buffer the ByteBuffer
-     * @throws IllegalArgumentException if the buffer is null or does not have at
-     *                                  least 12 bytes remaining
-     * @since 3.4
+     * @param machineId use this machine_id to make distributed unique id.
+     * @param encoding  the encoding.
+     * @return objectID (no container pid) in the encoding
      */
-    public void putToByteBuffer(final ByteBuffer buffer) {
-        if (null == buffer) {
-            throw new IllegalArgumentException("buffer is empty");
-        }
+    public static String generateNoPID(final int machineId, final IdEncoding encoding) {
+        return generateNoPID(SEQUENCER, machineId, encoding);
+    }
 
-        if (!(this.noRandomValue2 == false && buffer.remaining() >= OBJECT_ID_LENGTH
-                || this.noRandomValue2 == true && buffer.remaining() >= OBJECT_ID_LENGTH_NOPID)) {
-            throw new IllegalArgumentException("buffer.remaining() >=12");
+    static String generateNoPID(final Sequencer sequencer, final int machineId, final IdEncoding encoding) {
+        if (null == encoding) {
+            throw new IllegalArgumentException("encoding is null");
         }
-
-        buffer.put(int3(timestamp));
-        buffer.put(int2(timestamp));
-        buffer.put(int1(timestamp));
-        buffer.put(int0(timestamp));
-        buffer.put(int2(randomValue1));
-        buffer.put(int1(randomValue1));
-        buffer.put(int0(randomValue1));
-        if (!this.noRandomValue2) {
-            buffer.put(short1(randomValue2));
-            buffer.put(short0(randomValue2));
+        checkMachineId(machineId);
+        if (machineId == 0) {
+            throw new IllegalArgumentException("Need a machine id.");
         }
-        buffer.put(int2(counter));
-        buffer.put(int1(counter));
-        buffer.put(int0(counter));
+
+        long next = sequencer.next();
+        int counter = (int) next;
+        long high = (next & 0xffffffff00000000L) | ((long) machineId << 8) | (counter >>> 16);
+        return encoding.encode(high, counter & 0xffff, OBJECT_ID_LENGTH_NOPID);
     }
 
     /**
-     * Converts this instance into a 24-byte hexadecimal string representation.
+     * Generate `count` objectIDs (no container pid) in hex and write them one
+     * after another to the chars. The counters are reserved with a single atomic
+     * operation for every 2^24 ids, or with OverflowPolicy.BORROW and PARK for
+     * what is left of a second.
      *
-     * @return a string representation of the ObjectId in hexadecimal format
+     * With OverflowPolicy.WRAP (the default) a batch is not limited to the
+     * counters left in a second: more than 2^24 ids in a second repeat ids, in
+     * the batch or issued before. Set BORROW or PARK if the batch must be
+     * unique.
+     *
+     * @param machineId use this machine_id to make distributed unique id.
+     * @param dst       the destination chars.
+     * @param off       where to write the first char.
+     * @param count     how many ids to generate.
+     * @throws IllegalArgumentException if dst has less than 20 * count chars
+     *                                  after off.
      */
-    public String toHexString() {
-        char[] chars = null;
-        if (this.noRandomValue2) {
-            chars = new char[OBJECT_ID_LENGTH_NOPID * 2];
-        } else {
-            chars = new char[OBJECT_ID_LENGTH * 2];
+    public static void generateHexNoPID(final int machineId, final char[] dst, int off, int count) {
+        final int length = OBJECT_ID_LENGTH_NOPID * 2;
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative");
         }
-
-        int i = 0;
-        for (byte b : toByteArray()) {
-            chars[i++] = HEX_CHARS[b >> 4 & 0xF];
-            chars[i++] = HEX_CHARS[b & 0xF];
+        checkRemaining(dst, off, length * count);
+
+        Sequencer.Range range = new Sequencer.Range();
+        while (count > 0) {
+            reserveNoPID(SEQUENCER, machineId, range, Math.min(count, MAX_RESERVE));
+            int n = range.limit - range.next;
+            putHexNoPID(SEQUENCER, machineId, range, 0, n, dst, off);
+            off += n * length;
+            count -= n;
         }
-        return new String(chars);
     }
 
-    @Override
-    public String toString() {
-        return toHexString();
+    /**
+     * Reserve up to n (at most sequencer.capacity()) counters for ids without
+     * pid, with a single atomic operation. With OverflowPolicy.WRAP all n are
+     * reserved and may repeat counters of the second; with BORROW and PARK less
+     * than n are reserved if the second has not that many left.
+     *
+     * @param range where to put the reserved counters, render them with
+     *              putHexNoPID.
+     */
+    static void reserveNoPID(final Sequencer sequencer, final int machineId, final Sequencer.Range range,
+            final int n) {
+        checkMachineId(machineId);
+        if (machineId == 0) {
+            throw new IllegalArgumentException("Need a machine id.");
+        }
+        sequencer.reserve(range, n);
     }
 
-    private static byte int3(final int x) {
-        return (byte) (x >> 24);
+    /**
+     * Render the ids [from, from + count) of a range reserved by reserveNoPID
+     * into dst. The timestamp and machine id are shared by the whole range, so
+     * they are only formatted once.
+     */
+    static void putHexNoPID(final Sequencer sequencer, final int machineId, final Sequencer.Range range,
+            final int from, final int count, final char[] dst, final int off) {
+        final int length = OBJECT_ID_LENGTH_NOPID * 2;
+        if (count <= 0) {
+            return;
+        }
+        int inc = range.next + from;
+        int prefix = Hex.put(dst, off, (int) range.second, 4);
+        prefix = Hex.put(dst, prefix, machineId, 3) - off;
+        Hex.put(dst, off + prefix, sequencer.counter(inc), 3);
+        for (int i = 1; i < count; i++) {
+            int at = off + i * length;
+            System.arraycopy(dst, off, dst, at, prefix);
+            Hex.put(dst, at + prefix, sequencer.counter(inc + i), 3);
+        }
     }
 
-    private static byte int2(final int x) {
-        return (byte) (x >> 16);
-    }
+    private ObjectId() {}
 
-    private static byte int1(final int x) {
-        return (byte) (x >> 8);
+    private static void checkMachineId(final int machineId) {
+        if ((machineId & 0xff000000) != 0) {
+            throw new IllegalArgumentException(
+                    "The machine identifier must be between 0 and 16777214 (it must fit in three bytes).");
+        }
     }
 
-    private static byte int0(final int x) {
-        return (byte) (x);
+    private static void checkRemaining(final byte[] dst, final int off, final int length) {
+        if (null == dst) {
+            throw new IllegalArgumentException("dst is empty");
+        }
+        if (off < 0 || dst.length - off < length) {
+            throw new IllegalArgumentException("dst.length - off >= " + length);
+        }
     }
 
-    private static byte short1(final short x) {
-        return (byte) (x >> 8);
+    private static void checkRemaining(final ByteBuffer dst, final int length) {
+        if (null == dst) {
+            throw new IllegalArgumentException("dst is empty");
+        }
+        if (dst.remaining() < length) {
+            throw new IllegalArgumentException("dst.remaining() >= " + length);
+        }
     }
 
-    private static byte short0(final short x) {
-        return (byte) (x);
+    private static void checkRemaining(final char[] dst, final int off, final int length) {
+        if (null == dst) {
+            throw new IllegalArgumentException("dst is empty");
+        }
+        if (off < 0 || dst.length - off < length) {
+            throw new IllegalArgumentException("dst.length - off >= " + length);
+        }
     }
-
 }
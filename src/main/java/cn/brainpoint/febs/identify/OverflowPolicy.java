@@ -0,0 +1,29 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/6 09:40
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+/**
+ * What to do when the 3-byte counter space of a second is used up.
+ */
+public enum OverflowPolicy {
+    /**
+     * The counter just wraps, a burst of more than 2^24 ids in a second
+     * re-issues ids of that second. This is the default.
+     */
+    WRAP,
+    /**
+     * Count the ids of every second, and when a second is used up, issue ids
+     * of the next seconds ahead of the clock, bounded by the max borrow
+     * seconds. Once the bound is reached, wait like PARK.
+     */
+    BORROW,
+    /**
+     * Count the ids of every second, and when a second is used up, park the
+     * caller until the clock reaches the next second.
+     */
+    PARK,
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/6 10:02
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Count how many sequences of a second are used, so that a second never issues
+ * more sequences than it has.
+ *
+ * The state is a single `second << 32 | used` updated by CAS. The second of
+ * the state may run ahead of the clock when seconds are borrowed; the clock
+ * catches up and starts a fresh second once it passes the borrowed one.
+ */
+final class SecondSequence {
+
+    /**
+     * returned by reserve() when the second is used up and may not borrow.
+     */
+    static final long EXHAUSTED = -1;
+
+    private final long capacity;
+    private final AtomicLong state = new AtomicLong();
+    /**
+     * the most sequences a past second used, kept when the second is left.
+     */
+    private final LongAccumulator peak = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param capacity sequences in a second.
+     */
+    SecondSequence(final long capacity) {
+        if (capacity <= 0 || capacity > 0xffffffffL) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^32-1");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Reserve up to n sequences.
+     *
+     * @param now              the current second.
+     * @param n                how many sequences are wanted.
+     * @param maxBorrowSeconds how far the second may run ahead of now.
+     * @return second &lt;&lt; 32 | the first used sequence, or EXHAUSTED. The
+     *         number reserved is granted(result, n).
+     */
+    long reserve(final long now, final int n, final int maxBorrowSeconds) {
+        for (;;) {
+            long current = state.get();
+            long second = current >>> 32;
+            long used = current & 0xffffffffL;
+
+            if (now > second) {
+                if (state.compareAndSet(current, (now << 32) | Math.min(n, capacity))) {
+                    peak.accumulate(used);
+                    return now << 32;
+                }
+            } else if (used < capacity) {
+                if (state.compareAndSet(current, (second << 32) | (used + Math.min(n, capacity - used)))) {
+                    return current;
+                }
+            } else if (second + 1 - now <= maxBorrowSeconds) {
+                if (state.compareAndSet(current, ((second + 1) << 32) | Math.min(n, capacity))) {
+                    peak.accumulate(used);
+                    return (second + 1) << 32;
+                }
+            } else {
+                return EXHAUSTED;
+            }
+        }
+    }
+
+    /**
+     * @param reserved the result of reserve().
+     * @param n        how many sequences were wanted.
+     * @return how many sequences were reserved.
+     */
+    int granted(final long reserved, final int n) {
+        return (int) Math.min(n, capacity - (reserved & 0xffffffffL));
+    }
+
+    /**
+     * @param now the current second.
+     * @return how many sequences of the second are used, 0 if none was
+     *         reserved yet.
+     */
+    long getUsed(final long now) {
+        long current = state.get();
+        return (current >>> 32) >= now ? current & 0xffffffffL : 0;
+    }
+
+    /**
+     * @return the most sequences a second used, of the seconds left so far.
+     */
+    long getPeakUsed() {
+        return peak.get();
+    }
+}
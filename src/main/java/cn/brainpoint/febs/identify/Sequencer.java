@@ -0,0 +1,395 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/2 10:12
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import cn.brainpoint.febs.identify.clock.IdClock;
+import cn.brainpoint.febs.identify.clock.SystemIdClock;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hand out (second, counter) ranges for ObjectId.
+ *
+ * Each thread leases a small block of counters and issues ids from it without
+ * touching shared state. A lease only lives in the second it was taken.
+ *
+ * With OverflowPolicy.WRAP the leases come from a single running counter, so a
+ * counter is issued twice in a second only if the whole 3-byte counter space
+ * is consumed within that second. With the other policies the leases come from
+ * a SecondSequence that counts the counters of every second, and a used up
+ * second borrows ahead or parks instead of wrapping.
+ *
+ * In monotonic mode every counter is taken from the SecondSequence by a CAS,
+ * counted from 0 in every second, so the ids of a process are strictly
+ * increasing in the order they are issued; a used up second borrows ahead or
+ * parks like OverflowPolicy.BORROW, it never wraps.
+ *
+ * An IdGenerator of a namespace may fix the top bits of the counter to a
+ * prefix, its sequencer then has the counters of the low bits only.
+ *
+ * The seconds never go backwards: a thread that read the clock just before
+ * another thread moved to the next second uses the newer second. A clock that
+ * goes back further than that is a regression, handled by the
+ * ClockRegressionPolicy.
+ *
+ * The metrics are counted per lease or batch, not per id: the ids issued (a
+ * lease is counted by the ids taken from it when it is replaced, a batch by
+ * the counters it reserved), the leases that wrapped around the counter space,
+ * and the counters used in a second.
+ */
+@Slf4j
+final class Sequencer {
+
+    static final int LOW_ORDER_THREE_BYTES = 0x00ffffff;
+    static final int COUNTER_BITS = 24;
+    /**
+     * the most counters can be reserved at once, a whole 3-byte counter space.
+     */
+    static final int MAX_RESERVE = LOW_ORDER_THREE_BYTES + 1;
+    /**
+     * counters leased by a thread at once. With OverflowPolicy.WRAP a lease
+     * starts anywhere in the running counter, and may straddle the wrap of the
+     * counter space (counted by getWrapCount()).
+     */
+    static final int LEASE_SIZE = 256;
+    /**
+     * at most so many top bits of the counter can be a prefix, a lease must fit
+     * in the rest.
+     */
+    static final int MAX_PREFIX_BITS = COUNTER_BITS - 8;
+    /**
+     * how far (in seconds) a clock reading may lag behind the newest second
+     * before it is treated as a clock regression.
+     */
+    static final long MAX_LAG_SECONDS = 1;
+    static final int DEFAULT_MAX_BORROW_SECONDS = 2;
+
+    /**
+     * The counters [next, limit) of a second; only the low three bytes of a
+     * counter are meaningful.
+     */
+    static final class Range {
+        long second = -1;
+        /**
+         * the first counter of a lease, to count the ids taken from it.
+         */
+        int start;
+        int next;
+        int limit;
+    }
+
+    private final int counterMask;
+    private final int counterPrefix;
+    private final int capacity;
+    private final int counterBase = new SecureRandom().nextInt();
+    private final AtomicInteger nextCounter = new AtomicInteger(counterBase);
+    private final SecondSequence seconds;
+    private final AtomicLong lastSecond = new AtomicLong();
+    private final LongAdder borrowed = new LongAdder();
+    private final LongAdder parked = new LongAdder();
+    private final LongAdder regressions = new LongAdder();
+    private final LongAdder issued = new LongAdder();
+    private final LongAdder wraps = new LongAdder();
+    /**
+     * with OverflowPolicy.WRAP, the second whose usage is tracked and the
+     * running counter when it started.
+     */
+    private volatile long usageSecond = -1;
+    private volatile int usageStart;
+    private final LongAccumulator peakUsage = new LongAccumulator(Math::max, 0);
+    private final AtomicBoolean regressing = new AtomicBoolean();
+    private final ThreadLocal<Range> leases = ThreadLocal.withInitial(Range::new);
+
+    private volatile IdClock clock = SystemIdClock.INSTANCE;
+    private volatile OverflowPolicy policy = OverflowPolicy.WRAP;
+    private volatile int maxBorrowSeconds = DEFAULT_MAX_BORROW_SECONDS;
+    private volatile ClockRegressionPolicy regressionPolicy = ClockRegressionPolicy.REJECT;
+    private volatile ClockRegressionListener regressionListener;
+    private volatile boolean monotonic;
+
+    /**
+     * A sequencer of the whole 3-byte counter space.
+     */
+    Sequencer() {
+        this(0, 0);
+    }
+
+    /**
+     * @param prefixBits how many top bits of the counter are the prefix.
+     * @param prefix     the value of the top bits.
+     */
+    Sequencer(final int prefixBits, final int prefix) {
+        if (prefixBits < 0 || prefixBits > MAX_PREFIX_BITS) {
+            throw new IllegalArgumentException("prefixBits must be between 0 and " + MAX_PREFIX_BITS);
+        }
+        if (prefix < 0 || prefix >= (1 << prefixBits)) {
+            throw new IllegalArgumentException("prefix must fit in " + prefixBits + " bits");
+        }
+        this.capacity = 1 << (COUNTER_BITS - prefixBits);
+        this.counterMask = capacity - 1;
+        this.counterPrefix = prefix << (COUNTER_BITS - prefixBits);
+        this.seconds = new SecondSequence(capacity);
+    }
+
+    /**
+     * Issue a counter.
+     *
+     * @return second &lt;&lt; 32 | counter
+     */
+    long next() {
+        long second = second(clock.currentSeconds());
+        Range lease = leases.get();
+        if (monotonic) {
+            reserve(lease, second, 1);
+            issued.increment();
+            // counted, a lease taken after the mode changes back starts afresh.
+            lease.start = lease.next + 1;
+        } else if (lease.second < second || lease.next == lease.limit) {
+            issued.add(lease.next - lease.start);
+            reserve(lease, second, LEASE_SIZE);
+            lease.start = lease.next;
+        }
+        return (lease.second << 32) | counter(lease.next++);
+    }
+
+    /**
+     * @param raw a counter of a Range.
+     * @return the 3-byte counter of an id, with the prefix.
+     */
+    int counter(final int raw) {
+        return counterPrefix | (raw & counterMask);
+    }
+
+    /**
+     * @return the counters of a second, the most that can be reserved at once.
+     */
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Reserve up to n contiguous counters with a single atomic operation.
+     *
+     * With OverflowPolicy.WRAP all n are reserved from the running counter,
+     * whatever the second has left: past 2^24 counters in a second they repeat
+     * counters issued before, the duplicates are inherent to WRAP. With BORROW
+     * and PARK less than n are reserved if the second has not that many left,
+     * and they are unique; use them for batches that must be unique.
+     *
+     * @param range where to put the reserved counters, map them with counter().
+     * @param n     how many counters, at most capacity().
+     */
+    void reserve(final Range range, final int n) {
+        if (n <= 0 || n > capacity) {
+            throw new IllegalArgumentException("n must be between 1 and " + capacity);
+        }
+        reserve(range, second(clock.currentSeconds()), n);
+        issued.add(range.limit - range.next);
+    }
+
+    private void reserve(final Range range, long second, final int n) {
+        boolean ordered = monotonic;
+        if (policy == OverflowPolicy.WRAP && !ordered) {
+            range.second = second;
+            range.next = nextCounter.getAndAdd(n);
+            range.limit = range.next + n;
+            if (second != usageSecond) {
+                startUsage(second, range.next);
+            }
+            if (((range.next ^ (range.limit - 1)) & ~counterMask) != 0) {
+                wraps.increment();
+            }
+            return;
+        }
+
+        long reserved = reserve(seconds, second, n);
+        range.second = reserved >>> 32;
+        range.next = (ordered ? 0 : counterBase) + (int) reserved;
+        range.limit = range.next + seconds.granted(reserved, n);
+    }
+
+    /**
+     * Reserve up to n sequences of a SecondSequence, borrowing ahead as the
+     * OverflowPolicy allows (WRAP borrows like BORROW) and parking until the
+     * clock catches up.
+     *
+     * @param sequence the sequences, of this or of LongIdSequencer.
+     * @param second   the current second.
+     * @return the result of SecondSequence.reserve().
+     */
+    long reserve(final SecondSequence sequence, long second, final int n) {
+        int borrow = policy == OverflowPolicy.PARK ? 0 : maxBorrowSeconds;
+        long reserved;
+        while ((reserved = sequence.reserve(second, n, borrow)) == SecondSequence.EXHAUSTED) {
+            parked.increment();
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(1));
+            second = second(clock.currentSeconds());
+        }
+        if ((reserved >>> 32) > second && (int) reserved == 0) {
+            // started a second ahead of the clock.
+            borrowed.increment();
+        }
+        return reserved;
+    }
+
+    /**
+     * @return the current second: never behind the newest second, a clock
+     *         regression is handled by the ClockRegressionPolicy.
+     */
+    long currentSecond() {
+        return second(clock.currentSeconds());
+    }
+
+    /**
+     * Count ids issued outside of this, the long ids.
+     */
+    void countIssued(final int n) {
+        issued.add(n);
+    }
+
+    /**
+     * Keep the usage of the second that is left, and start counting the next.
+     */
+    private synchronized void startUsage(final long second, final int counter) {
+        if (second > usageSecond) {
+            if (usageSecond >= 0) {
+                peakUsage.accumulate((counter - usageStart) & 0xffffffffL);
+            }
+            usageStart = counter;
+            usageSecond = second;
+        }
+    }
+
+    /**
+     * Move the newest second forward without locks, and let readings that lag
+     * a little behind use the newest second.
+     */
+    private long second(final long now) {
+        for (;;) {
+            long last = lastSecond.get();
+            if (now <= last) {
+                if (last - now > MAX_LAG_SECONDS) {
+                    return regressed(last, now);
+                }
+                return last;
+            }
+            if (lastSecond.compareAndSet(last, now)) {
+                if (regressing.get()) {
+                    regressing.set(false);
+                }
+                return now;
+            }
+        }
+    }
+
+    private long regressed(final long last, final long now) {
+        if (!regressing.get() && regressing.compareAndSet(false, true)) {
+            regressions.increment();
+            ClockRegressionListener listener = regressionListener;
+            if (null != listener) {
+                try {
+                    listener.onClockRegression(last, now);
+                } catch (RuntimeException e) {
+                    log.warn("[febs-identify] clock regression listener error", e);
+                }
+            }
+        }
+        if (regressionPolicy == ClockRegressionPolicy.REJECT) {
+            throw new IllegalArgumentException("The 'date' must bigger then pre-time.");
+        }
+        return last;
+    }
+
+    IdClock getClock() {
+        return clock;
+    }
+
+    void setClock(final IdClock clock) {
+        this.clock = clock;
+    }
+
+    OverflowPolicy getOverflowPolicy() {
+        return policy;
+    }
+
+    void setOverflowPolicy(final OverflowPolicy policy, final int maxBorrowSeconds) {
+        this.maxBorrowSeconds = maxBorrowSeconds;
+        this.policy = policy;
+    }
+
+    boolean isMonotonic() {
+        return monotonic;
+    }
+
+    void setMonotonic(final boolean monotonic) {
+        this.monotonic = monotonic;
+    }
+
+    ClockRegressionPolicy getClockRegressionPolicy() {
+        return regressionPolicy;
+    }
+
+    void setClockRegressionPolicy(final ClockRegressionPolicy policy) {
+        this.regressionPolicy = policy;
+    }
+
+    void setClockRegressionListener(final ClockRegressionListener listener) {
+        this.regressionListener = listener;
+    }
+
+    long getClockRegressionCount() {
+        return regressions.sum();
+    }
+
+    long getBorrowCount() {
+        return borrowed.sum();
+    }
+
+    long getParkCount() {
+        return parked.sum();
+    }
+
+    /**
+     * @return the ids issued so far, without the ids of the leases in use.
+     */
+    long getIssuedCount() {
+        return issued.sum();
+    }
+
+    /**
+     * @return how many leases wrapped around the counter space.
+     */
+    long getWrapCount() {
+        return wraps.sum();
+    }
+
+    /**
+     * @return the counters used in the newest second.
+     */
+    long getUsage() {
+        long second = lastSecond.get();
+        if (policy == OverflowPolicy.WRAP && !monotonic) {
+            return usageSecond == second ? (nextCounter.get() - usageStart) & 0xffffffffL : 0;
+        }
+        return seconds.getUsed(second);
+    }
+
+    /**
+     * @return the most counters used in a second so far.
+     */
+    long getPeakUsage() {
+        return Math.max(Math.max(peakUsage.get(), seconds.getPeakUsed()), getUsage());
+    }
+}
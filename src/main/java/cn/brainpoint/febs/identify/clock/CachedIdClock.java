@@ -0,0 +1,84 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/3 11:15
+ * Desc:
+ */
+package cn.brainpoint.febs.identify.clock;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A seconds clock read with a plain volatile load.
+ *
+ * A daemon ticker refreshes the seconds right after every second boundary, and
+ * at least every `tickMillis` so that a stepped wall clock is noticed soon.
+ * The cached value lags the wall clock by at most the wake-up latency of the
+ * ticker after a boundary.
+ *
+ * e.g. Identify.setClock(CachedIdClock.start());
+ */
+public final class CachedIdClock implements IdClock, AutoCloseable {
+
+    public static final long DEFAULT_TICK_MILLIS = 100;
+
+    private volatile long seconds;
+    private volatile boolean running = true;
+    private final long tickMillis;
+    private final Thread ticker;
+
+    private CachedIdClock(final long tickMillis) {
+        if (tickMillis <= 0 || tickMillis > 1000) {
+            throw new IllegalArgumentException("tickMillis must be between 1 and 1000");
+        }
+        this.tickMillis = tickMillis;
+        this.seconds = System.currentTimeMillis() / 1000;
+        this.ticker = new Thread(this::tick, "febs-identify-clock");
+        this.ticker.setDaemon(true);
+    }
+
+    /**
+     * Start a cached clock with the default tick.
+     *
+     * @return the started clock.
+     */
+    public static CachedIdClock start() {
+        return start(DEFAULT_TICK_MILLIS);
+    }
+
+    /**
+     * Start a cached clock.
+     *
+     * @param tickMillis the longest interval between two refreshes.
+     * @return the started clock.
+     */
+    public static CachedIdClock start(final long tickMillis) {
+        CachedIdClock clock = new CachedIdClock(tickMillis);
+        clock.ticker.start();
+        return clock;
+    }
+
+    @Override
+    public long currentSeconds() {
+        return seconds;
+    }
+
+    /**
+     * Stop the ticker; the clock stays at the last refreshed second.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(ticker);
+    }
+
+    private void tick() {
+        while (running) {
+            long now = System.currentTimeMillis();
+            seconds = now / 1000;
+            long sleep = Math.min(1000 - now % 1000, tickMillis);
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(sleep));
+        }
+    }
+}
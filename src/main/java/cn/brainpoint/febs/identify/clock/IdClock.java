@@ -0,0 +1,21 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/3 11:05
+ * Desc:
+ */
+package cn.brainpoint.febs.identify.clock;
+
+/**
+ * The time source of ids. Ids only encode seconds, so a clock only needs to
+ * tell the seconds since the Unix epoch.
+ *
+ * It is called on every id generation, so it must be cheap and thread safe.
+ */
+public interface IdClock {
+
+    /**
+     * @return the seconds since the Unix epoch.
+     */
+    long currentSeconds();
+}
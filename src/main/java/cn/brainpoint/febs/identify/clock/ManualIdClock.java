@@ -0,0 +1,49 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/3 11:32
+ * Desc:
+ */
+package cn.brainpoint.febs.identify.clock;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A deterministic clock that only moves when told, to simulate second
+ * rollovers and clock jumps.
+ */
+public final class ManualIdClock implements IdClock {
+
+    private final AtomicLong seconds;
+
+    /**
+     * @param seconds the initial seconds since the Unix epoch.
+     */
+    public ManualIdClock(final long seconds) {
+        this.seconds = new AtomicLong(seconds);
+    }
+
+    @Override
+    public long currentSeconds() {
+        return seconds.get();
+    }
+
+    /**
+     * Set the clock, it may go backwards.
+     *
+     * @param seconds the seconds since the Unix epoch.
+     */
+    public void set(final long seconds) {
+        this.seconds.set(seconds);
+    }
+
+    /**
+     * Move the clock, it may go backwards with a negative delta.
+     *
+     * @param deltaSeconds the seconds to add.
+     * @return the new seconds.
+     */
+    public long advance(final long deltaSeconds) {
+        return this.seconds.addAndGet(deltaSeconds);
+    }
+}
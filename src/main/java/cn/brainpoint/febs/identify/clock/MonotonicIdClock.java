@@ -0,0 +1,45 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/7 16:02
+ * Desc:
+ */
+package cn.brainpoint.febs.identify.clock;
+
+/**
+ * A clock anchored on System.nanoTime() plus the wall clock read at start, so
+ * a wall clock stepped backwards never moves it back.
+ *
+ * It drifts with the rate of nanoTime; call resync() (e.g. periodically) to
+ * pull it forward to the wall clock again. It never moves backwards.
+ */
+public final class MonotonicIdClock implements IdClock {
+
+    /**
+     * wall clock millis minus nanoTime millis at the anchor.
+     */
+    private volatile long offsetMillis;
+
+    public MonotonicIdClock() {
+        this.offsetMillis = System.currentTimeMillis() - System.nanoTime() / 1000000;
+    }
+
+    @Override
+    public long currentSeconds() {
+        return (System.nanoTime() / 1000000 + offsetMillis) / 1000;
+    }
+
+    /**
+     * Re-anchor on the wall clock if it is ahead of this clock.
+     *
+     * @return whether the clock was moved.
+     */
+    public synchronized boolean resync() {
+        long offset = System.currentTimeMillis() - System.nanoTime() / 1000000;
+        if (offset <= offsetMillis) {
+            return false;
+        }
+        offsetMillis = offset;
+        return true;
+    }
+}
@@ -0,0 +1,22 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/3 11:08
+ * Desc:
+ */
+package cn.brainpoint.febs.identify.clock;
+
+/**
+ * Read System.currentTimeMillis() on every call. This is the default clock.
+ */
+public final class SystemIdClock implements IdClock {
+
+    public static final SystemIdClock INSTANCE = new SystemIdClock();
+
+    private SystemIdClock() {}
+
+    @Override
+    public long currentSeconds() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
@@ -0,0 +1,167 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/16 16:05
+ * Desc:
+ */
+package cn.brainpoint.febs.identify.dao;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntConsumer;
+
+import cn.brainpoint.febs.identify.IdentifyCfg;
+import cn.brainpoint.febs.identify.exception.DBException;
+import cn.brainpoint.febs.identify.spi.MachineIdProvider;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Machine ids of the processes of a single host, without any database: the
+ * machine id n is owned by holding the lock of `machine-n.lock` in the
+ * directory IdentifyCfg.url, n is 1..slotCount.
+ *
+ * The lock is released by the OS when the process dies. A clean release writes
+ * its time into the file; a file taken after a crash, or released in the
+ * current second, is used from the next second on only.
+ */
+@Slf4j
+public class FileMachineIdProvider implements MachineIdProvider {
+
+    private static final String TYPE = "file";
+    /**
+     * the content while the file is locked, a crash leaves it there.
+     */
+    private static final String IN_USE = "in use";
+
+    private FileChannel channel;
+    private FileLock lock;
+
+    @Override
+    public boolean supports(IdentifyCfg cfg) {
+        return null != cfg && TYPE.equals(cfg.getType());
+    }
+
+    @Override
+    public synchronized int acquire(IdentifyCfg cfg, IntConsumer onChange) {
+        release();
+        if (null == cfg.getUrl()) {
+            throw new IllegalArgumentException("url is the directory of the lock files");
+        }
+        Path dir = Paths.get(cfg.getUrl()).toAbsolutePath();
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new DBException("Create " + dir + " error", e);
+        }
+
+        int slotCount = cfg.resolveSlotCount();
+        for (int slot = 1; slot <= slotCount; slot++) {
+            Path path = dir.resolve("machine-" + slot + ".lock");
+            if (tryLock(path)) {
+                log.info(String.format("[febs] Machine ID: %s; Lock: %s", slot, path));
+                return slot;
+            }
+        }
+        throw new DBException("No free machine id in " + dir);
+    }
+
+    private boolean tryLock(Path path) {
+        FileChannel ch = null;
+        try {
+            ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            FileLock fl = ch.tryLock();
+            if (null == fl) {
+                ch.close();
+                return false;
+            }
+            long released = readReleased(ch);
+            write(ch, IN_USE);
+            waitAfter(released);
+            channel = ch;
+            lock = fl;
+            return true;
+        } catch (OverlappingFileLockException e) {
+            // held by this process.
+            closeQuietly(ch);
+            return false;
+        } catch (IOException e) {
+            closeQuietly(ch);
+            log.warn(String.format("[febs-identify] lock %s error: %s", path, e.getMessage()));
+            return false;
+        }
+    }
+
+    /**
+     * @return when the previous owner released it in millis, 0 for a new file,
+     *         or -1 if it is unknown.
+     */
+    private static long readReleased(FileChannel ch) throws IOException {
+        if (ch.size() == 0) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(ch.size(), 32));
+        ch.read(buffer, 0);
+        String content = new String(buffer.array(), 0, buffer.position(), StandardCharsets.US_ASCII).trim();
+        try {
+            return Long.parseLong(content);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * The previous owner may have issued ids up to the second it was released,
+     * or up to now if it is unknown; issue ids in a later second only.
+     */
+    private static void waitAfter(long released) {
+        long now = System.currentTimeMillis();
+        long last = released < 0 ? now : released;
+        if (last / 1000 < now / 1000) {
+            return;
+        }
+        long wait = (last / 1000 + 1) * 1000 - now;
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(wait));
+    }
+
+    private static void write(FileChannel ch, String content) throws IOException {
+        ch.truncate(0);
+        ch.write(ByteBuffer.wrap(content.getBytes(StandardCharsets.US_ASCII)), 0);
+        ch.force(false);
+    }
+
+    @Override
+    public synchronized void release() {
+        if (null == lock) {
+            return;
+        }
+        try {
+            write(channel, String.valueOf(System.currentTimeMillis()));
+            lock.release();
+        } catch (IOException e) {
+            log.warn("[febs-identify] release machine id error: " + e.getMessage());
+        }
+        closeQuietly(channel);
+        lock = null;
+        channel = null;
+    }
+
+    private static void closeQuietly(FileChannel ch) {
+        try {
+            if (null != ch) {
+                ch.close();
+            }
+        } catch (IOException e) {
+            log.warn("[febs-identify] close lock error: " + e.getMessage());
+        }
+    }
+}
@@ -12,6 +12,8 @@ import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Update;
 
+import java.util.List;
+
 /**
  *
  *
@@ -29,4 +31,40 @@ public interface IMachineIdMapperMysql {
     @Insert("INSERT INTO `${tablename}`() VALUES()")
     @Options(useGeneratedKeys = true, keyProperty = "mod.id")
     void getNewId(@Param("tablename") String tablename, @Param("mod") MachineIdBean mod);
+
+    @Update("CREATE TABLE IF NOT EXISTS `${tablename}`(`slot` int UNSIGNED NOT NULL, `owner` varchar(128) NULL, " +
+            "`lease_expire` bigint NOT NULL DEFAULT 0, `heartbeat` bigint NOT NULL DEFAULT 0, PRIMARY KEY (`slot`)) " +
+            "COLLATE='utf8_general_ci' " +
+            "ENGINE=InnoDB;")
+    void assureLeaseTable(@Param("tablename") String tablename);
+
+    @Insert("<script>INSERT IGNORE INTO `${tablename}`(`slot`) VALUES " +
+            "<foreach collection='slots' item='slot' separator=','>(#{slot})</foreach></script>")
+    void addSlots(@Param("tablename") String tablename, @Param("slots") List<Integer> slots);
+
+    /**
+     * Take the slot expired for the longest time; LAST_INSERT_ID(slot) hands the
+     * slot back as the generated key, so it costs a single statement.
+     */
+    @Update("UPDATE `${tablename}` SET `slot` = LAST_INSERT_ID(`slot`), `owner` = #{owner}, " +
+            "`lease_expire` = UNIX_TIMESTAMP() + #{leaseSeconds}, `heartbeat` = UNIX_TIMESTAMP() " +
+            "WHERE `lease_expire` < UNIX_TIMESTAMP() AND `slot` <= #{slotCount} " +
+            "ORDER BY `lease_expire`, `slot` LIMIT 1")
+    @Options(useGeneratedKeys = true, keyProperty = "mod.id")
+    int acquireSlot(@Param("tablename") String tablename, @Param("owner") String owner,
+                    @Param("leaseSeconds") int leaseSeconds, @Param("slotCount") int slotCount,
+                    @Param("mod") MachineIdBean mod);
+
+    @Update("UPDATE `${tablename}` SET `lease_expire` = UNIX_TIMESTAMP() + #{leaseSeconds}, " +
+            "`heartbeat` = UNIX_TIMESTAMP() WHERE `slot` = #{slot} AND `owner` = #{owner}")
+    int renewSlot(@Param("tablename") String tablename, @Param("slot") int slot, @Param("owner") String owner,
+                  @Param("leaseSeconds") int leaseSeconds);
+
+    /**
+     * Keep the slot for a short grace, so that a new owner never issues ids in
+     * the same second as the old one.
+     */
+    @Update("UPDATE `${tablename}` SET `owner` = NULL, `lease_expire` = UNIX_TIMESTAMP() + 2 " +
+            "WHERE `slot` = #{slot} AND `owner` = #{owner}")
+    int releaseSlot(@Param("tablename") String tablename, @Param("slot") int slot, @Param("owner") String owner);
 }
@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/16 14:10
+ * Desc:
+ */
+package cn.brainpoint.febs.identify.dao;
+
+import java.util.Properties;
+
+/**
+ * The SQL that differs between databases for JdbcMachineIdProvider.
+ *
+ * The leases are counted in seconds of the database clock, so that the hosts
+ * sharing a lease table agree on when a lease expires.
+ */
+enum JdbcDialect {
+    /**
+     * the same tables as IMachineIdMapperMysql.
+     */
+    MYSQL("`", "BIGINT UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY", "() VALUES ()", "UNIX_TIMESTAMP()") {
+        @Override
+        Properties connectProperties(int timeoutMillis) {
+            Properties properties = new Properties();
+            properties.setProperty("connectTimeout", String.valueOf(timeoutMillis));
+            properties.setProperty("socketTimeout", String.valueOf(timeoutMillis));
+            return properties;
+        }
+    },
+    H2("\"", "BIGINT AUTO_INCREMENT PRIMARY KEY", "DEFAULT VALUES",
+            "CAST(FLOOR(EXTRACT(EPOCH FROM CURRENT_TIMESTAMP)) AS BIGINT)"),
+    POSTGRESQL("\"", "BIGSERIAL PRIMARY KEY", "DEFAULT VALUES",
+            "CAST(FLOOR(EXTRACT(EPOCH FROM CURRENT_TIMESTAMP)) AS BIGINT)") {
+        @Override
+        Properties connectProperties(int timeoutMillis) {
+            Properties properties = new Properties();
+            String seconds = String.valueOf(Math.max(1, timeoutMillis / 1000));
+            properties.setProperty("connectTimeout", seconds);
+            properties.setProperty("socketTimeout", seconds);
+            return properties;
+        }
+    };
+
+    private final String quote;
+    private final String autoIncrementColumn;
+    private final String insertDefaults;
+    /**
+     * the seconds since the epoch by the database clock, in SQL.
+     */
+    private final String now;
+
+    JdbcDialect(String quote, String autoIncrementColumn, String insertDefaults, String now) {
+        this.quote = quote;
+        this.autoIncrementColumn = autoIncrementColumn;
+        this.insertDefaults = insertDefaults;
+        this.now = now;
+    }
+
+    /**
+     * @param type IdentifyCfg.getType()
+     * @return the dialect, or null if it is not supported.
+     */
+    static JdbcDialect of(String type) {
+        if ("mysql".equals(type)) {
+            return MYSQL;
+        }
+        if ("h2".equals(type)) {
+            return H2;
+        }
+        if ("postgresql".equals(type)) {
+            return POSTGRESQL;
+        }
+        return null;
+    }
+
+    /**
+     * @param timeoutMillis connect and network timeout.
+     * @return the driver properties of the timeout, without user and password.
+     */
+    Properties connectProperties(int timeoutMillis) {
+        return new Properties();
+    }
+
+    String quote(String name) {
+        return quote + name + quote;
+    }
+
+    String createTable(String table) {
+        return "CREATE TABLE IF NOT EXISTS " + quote(table) + " (" + quote("id") + " " + autoIncrementColumn + ")";
+    }
+
+    String insert(String table) {
+        return "INSERT INTO " + quote(table) + " " + insertDefaults;
+    }
+
+    String createLeaseTable(String table) {
+        return "CREATE TABLE IF NOT EXISTS " + quote(table) + " (" + quote("slot") + " INT NOT NULL PRIMARY KEY, "
+                + quote("owner") + " VARCHAR(128), " + quote("lease_expire") + " BIGINT DEFAULT 0 NOT NULL, "
+                + quote("heartbeat") + " BIGINT DEFAULT 0 NOT NULL)";
+    }
+
+    String maxSlot(String table) {
+        return "SELECT MAX(" + quote("slot") + ") FROM " + quote(table);
+    }
+
+    String addSlot(String table) {
+        return "INSERT INTO " + quote(table) + " (" + quote("slot") + ") VALUES (?)";
+    }
+
+    String expiredSlots(String table) {
+        return "SELECT " + quote("slot") + ", " + quote("lease_expire") + " FROM " + quote(table) + " WHERE "
+                + quote("lease_expire") + " < " + now + " AND " + quote("slot") + " <= ? ORDER BY " + quote("lease_expire")
+                + ", " + quote("slot");
+    }
+
+    String takeSlot(String table) {
+        return "UPDATE " + quote(table) + " SET " + quote("owner") + " = ?, " + quote("lease_expire") + " = " + now
+                + " + ?, " + quote("heartbeat") + " = " + now + " WHERE " + quote("slot") + " = ? AND "
+                + quote("lease_expire") + " = ?";
+    }
+
+    String renewSlot(String table) {
+        return "UPDATE " + quote(table) + " SET " + quote("lease_expire") + " = " + now + " + ?, "
+                + quote("heartbeat") + " = " + now + " WHERE " + quote("slot") + " = ? AND " + quote("owner")
+                + " = ?";
+    }
+
+    String releaseSlot(String table) {
+        return "UPDATE " + quote(table) + " SET " + quote("owner") + " = NULL, " + quote("lease_expire")
+                + " = " + now + " + ? WHERE " + quote("slot") + " = ? AND " + quote("owner") + " = ?";
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/16 15:20
+ * Desc:
+ */
+package cn.brainpoint.febs.identify.dao;
+
+import java.util.function.IntConsumer;
+
+import cn.brainpoint.febs.identify.IdentifyCfg;
+import cn.brainpoint.febs.identify.exception.DBException;
+import cn.brainpoint.febs.identify.spi.Backoff;
+import cn.brainpoint.febs.identify.spi.MachineIdLease;
+import cn.brainpoint.febs.identify.spi.MachineIdProvider;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Machine ids in H2, PostgreSQL, or MySQL by plain JDBC, without MyBatis: a
+ * short-lived connection per statement, nothing is kept open afterwards.
+ *
+ * Like the MySQL provider, it leases a slot with IdentifyCfg.leaseSeconds, or
+ * takes a new id from an auto-increment table otherwise. The JDBC driver must be
+ * on the classpath. MySQL is served with IdentifyCfg.plainJdbc, or when MyBatis
+ * is not on the classpath.
+ */
+@Slf4j
+public class JdbcMachineIdProvider implements MachineIdProvider {
+
+    private MachineIdLease lease;
+
+    @Override
+    public boolean supports(IdentifyCfg cfg) {
+        if (null == cfg) {
+            return false;
+        }
+        JdbcDialect dialect = JdbcDialect.of(cfg.getType());
+        if (dialect == JdbcDialect.MYSQL) {
+            return cfg.isPlainJdbc() || !MysqlMachineIdProvider.isMybatisPresent();
+        }
+        return null != dialect;
+    }
+
+    @Override
+    public synchronized int acquire(IdentifyCfg cfg, IntConsumer onChange) {
+        release();
+        JdbcMachineIdStore store = new JdbcMachineIdStore(cfg, JdbcDialect.of(cfg.getType()));
+
+        int retryCount = cfg.getRetryCount();
+        int i = 0;
+        for (;;) {
+            try {
+                int machineId = acquire(cfg, store, onChange);
+                log.info(String.format("[febs] Machine ID: %s; Url: %s; Table: %s", machineId, store.getUri(),
+                        cfg.getLeaseSeconds() > 0 ? store.getLeaseTablename() : store.getTablename()));
+                return machineId;
+            } catch (DBException e) {
+                if (--retryCount < 0) {
+                    throw e;
+                }
+                log.warn("Get Machine id error", e);
+                log.info(String.format("[febs-identify] retry connect %d", ++i));
+                if (!Backoff.sleep(i, Backoff.MAX_MILLIS)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private int acquire(IdentifyCfg cfg, JdbcMachineIdStore store, IntConsumer onChange) {
+        if (cfg.getLeaseSeconds() <= 0) {
+            return (int) (store.newMachineId() % 0x00ffffff);
+        }
+        lease = MachineIdLease.start(store, cfg.getLeaseSeconds(), cfg.resolveSlotCount(), cfg.getStateFile(),
+                store.getUri() + "|" + store.getLeaseTablename(), onChange);
+        return lease.getSlot();
+    }
+
+    @Override
+    public synchronized void release() {
+        if (null != lease) {
+            lease.close();
+            lease = null;
+        }
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        if (null != lease) {
+            lease.shutdown();
+            lease = null;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/16 14:40
+ * Desc:
+ */
+package cn.brainpoint.febs.identify.dao;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import cn.brainpoint.febs.identify.IdentifyCfg;
+import cn.brainpoint.febs.identify.exception.DBException;
+import cn.brainpoint.febs.identify.spi.MachineIdLeaseStore;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Machine ids in a database by plain JDBC, one short-lived connection per call.
+ *
+ * The lease slots are kept in seconds of the database clock and compared in
+ * SQL, so that a host with a skewed clock neither takes a slot that is still
+ * leased nor lets its own lease lapse. A slot is taken by an optimistic UPDATE
+ * on its lease_expire.
+ */
+@Slf4j
+final class JdbcMachineIdStore implements MachineIdLeaseStore {
+
+    /**
+     * slots inserted by a batch when the table is filled.
+     */
+    private static final int SLOT_BATCH = 1000;
+    /**
+     * expired slots tried by an acquire before reading them again.
+     */
+    private static final int CANDIDATES = 16;
+    /**
+     * a released slot is blocked for so long, the owner may have issued ids in
+     * the current second.
+     */
+    private static final int RELEASE_BLOCK_SECONDS = 2;
+
+    private final JdbcDialect dialect;
+    private final String uri;
+    private final Properties properties;
+    private final String tablename;
+    private final String leaseTablename;
+
+    JdbcMachineIdStore(IdentifyCfg cfg, JdbcDialect dialect) {
+        try {
+            Class.forName(cfg.getDriver());
+        } catch (ClassNotFoundException e) {
+            throw new DBException("JDBC driver not found: " + cfg.getDriver(), e);
+        }
+        this.dialect = dialect;
+        this.uri = cfg.getUri();
+        this.properties = dialect.connectProperties(cfg.getConnectTimeout() <= 0 ? 5000 : cfg.getConnectTimeout());
+        if (null != cfg.getUsername()) {
+            this.properties.setProperty("user", cfg.getUsername());
+        }
+        if (null != cfg.getPassword()) {
+            this.properties.setProperty("password", cfg.getPassword());
+        }
+        this.tablename = cfg.resolveTablename();
+        this.leaseTablename = this.tablename + IdentifyCfg.LEASE_TABLE_SUFFIX;
+    }
+
+    String getUri() {
+        return uri;
+    }
+
+    String getTablename() {
+        return tablename;
+    }
+
+    String getLeaseTablename() {
+        return leaseTablename;
+    }
+
+    /**
+     * Take a new machine id from the auto-increment table. The table is created
+     * only if the INSERT fails, so a usual start costs a single statement.
+     *
+     * @return machine id
+     */
+    long newMachineId() {
+        try (Connection conn = connect()) {
+            try {
+                return insert(conn);
+            } catch (SQLException e) {
+                log.info("[febs identity] machine id table is not ready: " + e.getMessage());
+            }
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(dialect.createTable(tablename));
+            }
+            return insert(conn);
+        } catch (SQLException e) {
+            throw new DBException("Get Machine id error", e);
+        }
+    }
+
+    private long insert(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(dialect.insert(tablename),
+                Statement.RETURN_GENERATED_KEYS)) {
+            stmt.executeUpdate();
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                if (!keys.next()) {
+                    throw new DBException("No generated key from " + tablename);
+                }
+                return keys.getLong(1);
+            }
+        }
+    }
+
+    @Override
+    public int acquire(String owner, int leaseSeconds, int slotCount) {
+        try (Connection conn = connect()) {
+            Integer slot = null;
+            try {
+                slot = tryAcquire(conn, owner, leaseSeconds, slotCount);
+            } catch (SQLException e) {
+                log.info("[febs identity] lease table is not ready: " + e.getMessage());
+            }
+            if (null == slot) {
+                assureSlots(conn, slotCount);
+                slot = tryAcquire(conn, owner, leaseSeconds, slotCount);
+            }
+            if (null == slot) {
+                throw new DBException("No free machine id in " + leaseTablename);
+            }
+            return slot;
+        } catch (SQLException e) {
+            throw new DBException("Lease machine id error", e);
+        }
+    }
+
+    @Override
+    public boolean renew(int slot, String owner, int leaseSeconds) {
+        try (Connection conn = connect();
+                PreparedStatement stmt = conn.prepareStatement(dialect.renewSlot(leaseTablename))) {
+            stmt.setInt(1, leaseSeconds);
+            stmt.setInt(2, slot);
+            stmt.setString(3, owner);
+            return stmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            throw new DBException("Renew machine id error", e);
+        }
+    }
+
+    @Override
+    public void release(int slot, String owner) {
+        try (Connection conn = connect();
+                PreparedStatement stmt = conn.prepareStatement(dialect.releaseSlot(leaseTablename))) {
+            stmt.setInt(1, RELEASE_BLOCK_SECONDS);
+            stmt.setInt(2, slot);
+            stmt.setString(3, owner);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new DBException("Release machine id error", e);
+        }
+    }
+
+    private Integer tryAcquire(Connection conn, String owner, int leaseSeconds, int slotCount) throws SQLException {
+        for (;;) {
+            List<long[]> candidates = new ArrayList<>();
+            try (PreparedStatement stmt = conn.prepareStatement(dialect.expiredSlots(leaseTablename))) {
+                stmt.setMaxRows(CANDIDATES);
+                stmt.setInt(1, slotCount);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        candidates.add(new long[] { rs.getInt(1), rs.getLong(2) });
+                    }
+                }
+            }
+            if (candidates.isEmpty()) {
+                return null;
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(dialect.takeSlot(leaseTablename))) {
+                for (long[] candidate : candidates) {
+                    stmt.setString(1, owner);
+                    stmt.setInt(2, leaseSeconds);
+                    stmt.setInt(3, (int) candidate[0]);
+                    stmt.setLong(4, candidate[1]);
+                    if (stmt.executeUpdate() > 0) {
+                        return (int) candidate[0];
+                    }
+                }
+            }
+            // all taken by other processes meanwhile, read again.
+        }
+    }
+
+    private void assureSlots(Connection conn, int slotCount) throws SQLException {
+        int max;
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(dialect.createLeaseTable(leaseTablename));
+            try (ResultSet rs = stmt.executeQuery(dialect.maxSlot(leaseTablename))) {
+                max = rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(dialect.addSlot(leaseTablename))) {
+            for (int from = max + 1; from <= slotCount; from += SLOT_BATCH) {
+                for (int slot = from; slot < from + SLOT_BATCH && slot <= slotCount; slot++) {
+                    stmt.setInt(1, slot);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+        } catch (SQLException e) {
+            // another process is filling the table at the same time.
+            log.info("[febs identity] fill lease table: " + e.getMessage());
+        }
+    }
+
+    private Connection connect() throws SQLException {
+        return DriverManager.getConnection(uri, properties);
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/13 10:20
+ * Desc:
+ */
+package cn.brainpoint.febs.identify.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.session.SqlSession;
+
+import cn.brainpoint.febs.identify.exception.DBException;
+import cn.brainpoint.febs.identify.spi.MachineIdLeaseStore;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Lease machine ids from a bounded slot table instead of growing an
+ * auto-increment: a slot is owned until its lease expires, and an expired slot
+ * is taken by the next process.
+ */
+@Slf4j
+public class MachineIdLeaseService extends BaseService implements MachineIdLeaseStore {
+
+    /**
+     * slots inserted by a statement when the table is filled.
+     */
+    private static final int SLOT_BATCH = 1000;
+
+    private final String tablename;
+
+    /**
+     * @param tablename the slot table.
+     */
+    public MachineIdLeaseService(String tablename) {
+        super();
+        this.tablename = tablename;
+    }
+
+    /**
+     * Take a free slot. The table is created and filled only when no slot can
+     * be taken, so a usual start costs a single UPDATE.
+     *
+     * @param owner        who owns the slot.
+     * @param leaseSeconds how long the lease lasts.
+     * @param slotCount    the slots are 1..slotCount.
+     * @return the slot, it is the machine id.
+     */
+    @Override
+    public int acquire(String owner, int leaseSeconds, int slotCount) {
+        Long slot = null;
+        try {
+            slot = tryAcquire(owner, leaseSeconds, slotCount);
+        } catch (Exception e) {
+            log.info("[febs identity] lease table is not ready: " + e.getMessage());
+        }
+
+        if (null == slot) {
+            assureSlots(slotCount);
+            slot = tryAcquire(owner, leaseSeconds, slotCount);
+        }
+        if (null == slot) {
+            throw new DBException("No free machine id in " + tablename);
+        }
+        return slot.intValue();
+    }
+
+    /**
+     * Extend the lease of a slot.
+     *
+     * @return false if the slot is not owned by the owner anymore.
+     */
+    @Override
+    public boolean renew(int slot, String owner, int leaseSeconds) {
+        try (SqlSession session = openSession()) {
+            IMachineIdMapperMysql mapper = session.getMapper(IMachineIdMapperMysql.class);
+            int rows = mapper.renewSlot(tablename, slot, owner, leaseSeconds);
+            session.commit();
+            return rows > 0;
+        }
+    }
+
+    /**
+     * Give a slot back.
+     */
+    @Override
+    public void release(int slot, String owner) {
+        try (SqlSession session = openSession()) {
+            IMachineIdMapperMysql mapper = session.getMapper(IMachineIdMapperMysql.class);
+            mapper.releaseSlot(tablename, slot, owner);
+            session.commit();
+        }
+    }
+
+    private Long tryAcquire(String owner, int leaseSeconds, int slotCount) {
+        try (SqlSession session = openSession()) {
+            IMachineIdMapperMysql mapper = session.getMapper(IMachineIdMapperMysql.class);
+            MachineIdBean mod = new MachineIdBean();
+            int rows = mapper.acquireSlot(tablename, owner, leaseSeconds, slotCount, mod);
+            session.commit();
+            return rows > 0 ? mod.getId() : null;
+        }
+    }
+
+    private void assureSlots(int slotCount) {
+        try (SqlSession session = openSession()) {
+            IMachineIdMapperMysql mapper = session.getMapper(IMachineIdMapperMysql.class);
+            mapper.assureLeaseTable(tablename);
+            for (int from = 1; from <= slotCount; from += SLOT_BATCH) {
+                List<Integer> slots = new ArrayList<>();
+                for (int slot = from; slot < from + SLOT_BATCH && slot <= slotCount; slot++) {
+                    slots.add(slot);
+                }
+                mapper.addSlots(tablename, slots);
+            }
+            session.commit();
+        }
+    }
+}
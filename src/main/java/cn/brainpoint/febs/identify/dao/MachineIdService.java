@@ -9,6 +9,7 @@ package cn.brainpoint.febs.identify.dao;
 import org.apache.ibatis.session.SqlSession;
 
 import cn.brainpoint.febs.identify.Identify;
+import cn.brainpoint.febs.identify.exception.DBException;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -38,6 +39,7 @@ public class MachineIdService extends BaseService {
     /**
      * Get a new machine id.
      * @return machine id
+     * @throws DBException if no id can be taken.
      */
     public Long getNewMachineId() {
         SqlSession session = openSession();
@@ -52,11 +54,15 @@ public class MachineIdService extends BaseService {
         }
         catch (Exception e) {
             log.error("[febs identity] db connect in getNewMachineId: " + e.getMessage());
+            throw new DBException("db connect in getNewMachineId", e);
         }
         finally {
             session.close();
         }
 
+        if (null == id) {
+            throw new DBException("No generated key from " + Identify.Configuration.getTablename());
+        }
         return id;
     }
 }
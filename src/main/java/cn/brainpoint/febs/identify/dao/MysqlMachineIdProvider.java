@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/16 11:10
+ * Desc:
+ */
+package cn.brainpoint.febs.identify.dao;
+
+import java.util.function.IntConsumer;
+
+import cn.brainpoint.febs.identify.Identify;
+import cn.brainpoint.febs.identify.IdentifyCfg;
+import cn.brainpoint.febs.identify.spi.MachineIdProvider;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Machine ids in MySQL by MyBatis: Identify.leaseMachineId() with
+ * IdentifyCfg.leaseSeconds, or Identify.generateNewMachineId() otherwise.
+ *
+ * Not used with IdentifyCfg.plainJdbc or without MyBatis on the classpath,
+ * then JdbcMachineIdProvider serves MySQL.
+ */
+@Slf4j
+public class MysqlMachineIdProvider implements MachineIdProvider {
+
+    private static final String TYPE = "mysql";
+    private static final boolean MYBATIS_PRESENT = isPresent("org.apache.ibatis.session.SqlSession");
+
+    /**
+     * @return whether MyBatis is on the classpath, it is an optional dependency.
+     */
+    static boolean isMybatisPresent() {
+        return MYBATIS_PRESENT;
+    }
+
+    @Override
+    public boolean supports(IdentifyCfg cfg) {
+        return MYBATIS_PRESENT && (null == cfg || (TYPE.equals(cfg.getType()) && !cfg.isPlainJdbc()));
+    }
+
+    /**
+     * @param cfg      the configuration, or null to use the one of
+     *                 Identify.setupDatabase().
+     * @param onChange not used, a new leased machine id is set to Identify by
+     *                 itself.
+     */
+    @Override
+    public int acquire(IdentifyCfg cfg, IntConsumer onChange) {
+        if (null != cfg) {
+            Identify.setupDatabase(cfg);
+        }
+        int machineId = Identify.Configuration.getLeaseSeconds() > 0 ? Identify.leaseMachineId()
+                : Identify.generateNewMachineId();
+        log.info(String.format("[febs] Machine ID: %s; Table: %s", machineId,
+                Identify.Configuration.getTablename()));
+        return machineId;
+    }
+
+    @Override
+    public void release() {
+        Identify.releaseMachineId();
+    }
+
+    /**
+     * Identify keeps or releases the lease at shutdown by itself.
+     */
+    @Override
+    public void shutdown() {
+    }
+
+    private static boolean isPresent(String className) {
+        try {
+            Class.forName(className, false, MysqlMachineIdProvider.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/18 10:12
+ * Desc:
+ */
+package cn.brainpoint.febs.identify.exception;
+
+import cn.brainpoint.febs.identify.IdentifyState;
+
+/**
+ * Identify has no machine id (yet), ids cannot be generated.
+ */
+public class NotReadyException extends RuntimeException {
+    private static final long serialVersionUID = -2219436117466420184L;
+
+    private final IdentifyState state;
+
+    public NotReadyException(IdentifyState state, String message) {
+        super(message);
+        this.state = state;
+    }
+
+    public NotReadyException(IdentifyState state, String message, Throwable cause) {
+        super(message, cause);
+        this.state = state;
+    }
+
+    /**
+     * @return the state when it was thrown.
+     */
+    public IdentifyState getState() {
+        return state;
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/18 10:20
+ * Desc:
+ */
+package cn.brainpoint.febs.identify.spi;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Exponential backoff with full jitter between retries to connect, so that a
+ * fleet restarting at once does not hit the database in lockstep.
+ *
+ * Every retry of the library sleeps here, so getRetryCount() counts them.
+ */
+public final class Backoff {
+
+    /**
+     * the cap of the first delay.
+     */
+    public static final long BASE_MILLIS = 100;
+    /**
+     * the cap of any delay.
+     */
+    public static final long MAX_MILLIS = 5000;
+
+    private static final LongAdder RETRIES = new LongAdder();
+
+    private Backoff() {
+    }
+
+    /**
+     * @param attempt the failed attempts so far, from 1.
+     * @return a random delay between 0 and min(MAX_MILLIS, BASE_MILLIS *
+     *         2^(attempt-1)).
+     */
+    public static long delayMillis(int attempt) {
+        long cap = BASE_MILLIS << Math.min(Math.max(attempt - 1, 0), 16);
+        return ThreadLocalRandom.current().nextLong(Math.min(cap, MAX_MILLIS) + 1);
+    }
+
+    /**
+     * Sleep before the next attempt.
+     *
+     * @param attempt   the failed attempts so far, from 1.
+     * @param maxMillis sleep no longer than this, e.g. the time to a deadline.
+     * @return false if interrupted, the interrupt flag is set again.
+     */
+    public static boolean sleep(int attempt, long maxMillis) {
+        long delay = Math.min(delayMillis(attempt), Math.max(0, maxMillis));
+        RETRIES.increment();
+        try {
+            TimeUnit.MILLISECONDS.sleep(delay);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * @return how many times a retry slept.
+     */
+    public static long getRetryCount() {
+        return RETRIES.sum();
+    }
+}
@@ -0,0 +1,242 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/13 11:05
+ * Desc:
+ */
+package cn.brainpoint.febs.identify.spi;
+
+import java.lang.management.ManagementFactory;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntConsumer;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A machine id leased from a MachineIdLeaseStore, kept alive by a background
+ * renewer.
+ *
+ * The lease is renewed every third of its length. If the slot was taken by
+ * another process (e.g. this one was paused longer than the lease), the
+ * listener is told 0 first, so that no id is issued with the lost slot, then a
+ * new slot is leased and reported to it. If the store cannot be reached and
+ * only one renewal is left before the lease expires, the listener is told 0
+ * as well, at least a renewal period ahead of the expiry, and the slot again
+ * once a renewal succeeds. close() tells it 0 before the slot goes back to the
+ * store.
+ *
+ * With a MachineIdStateFile every renewal is written to it, so that a restart
+ * can resume the lease without waiting for the database.
+ */
+@Slf4j
+public final class MachineIdLease implements AutoCloseable {
+
+    private final MachineIdLeaseStore store;
+    @Getter
+    private final String owner;
+    private final int leaseSeconds;
+    private final int slotCount;
+    private final IntConsumer onChange;
+    private final long periodMillis;
+    private final MachineIdStateFile stateFile;
+    private final ScheduledExecutorService renewer;
+    @Getter
+    private volatile int slot;
+    /**
+     * when the lease ends as far as this process knows, in millis.
+     */
+    @Getter
+    private volatile long expireMillis;
+    /**
+     * whether the listener was told 0, the slot is not to be used.
+     */
+    @Getter
+    private volatile boolean suspended;
+
+    private MachineIdLease(MachineIdLeaseStore store, String owner, int slot, long expireMillis,
+            int leaseSeconds, int slotCount, IntConsumer onChange, MachineIdStateFile stateFile, long firstRenew) {
+        this.store = store;
+        this.owner = owner;
+        this.slot = slot;
+        this.expireMillis = expireMillis;
+        this.leaseSeconds = leaseSeconds;
+        this.slotCount = slotCount;
+        this.onChange = onChange;
+        this.stateFile = stateFile;
+        this.renewer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "febs-identify-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.periodMillis = Math.max(1, leaseSeconds * 1000L / 3);
+        this.renewer.scheduleWithFixedDelay(this::renew, firstRenew < 0 ? periodMillis : firstRenew, periodMillis,
+                TimeUnit.MILLISECONDS);
+        save();
+    }
+
+    /**
+     * Lease a machine id and start renewing it.
+     *
+     * With a state file, a lease kept in it by a previous run on this host is
+     * resumed without touching the store while it is valid for at least one more
+     * renewal, and revalidated by renewing it right away in background. It
+     * returns in a later second than the one the previous run stopped in.
+     *
+     * @param store         where the slots are kept.
+     * @param leaseSeconds  how long a lease lasts.
+     * @param slotCount     the machine ids are 1..slotCount.
+     * @param stateFilePath where to keep the lease, may be null.
+     * @param source        names the store in the state file, a state of another
+     *                      store is ignored.
+     * @param onChange      told about the new machine id if the lease is lost,
+     *                      or 0 while the machine id must not be used.
+     * @return the lease.
+     */
+    public static MachineIdLease start(MachineIdLeaseStore store, int leaseSeconds, int slotCount,
+            String stateFilePath, String source, IntConsumer onChange) {
+        MachineIdStateFile stateFile = null;
+        if (null != stateFilePath) {
+            stateFile = new MachineIdStateFile(stateFilePath, source);
+            if (!stateFile.lock()) {
+                log.warn(String.format("[febs-identify] %s is used by another process", stateFilePath));
+                stateFile = null;
+            }
+        }
+
+        MachineIdStateFile.State state = null == stateFile ? null : stateFile.load();
+        if (null != state && state.getExpireMillis() > System.currentTimeMillis() + leaseSeconds * 1000L / 3) {
+            waitAfterPreviousRun(state.getReleasedMillis());
+            log.info(String.format("[febs-identify] Machine ID: %s (resumed from %s);", state.getSlot(),
+                    stateFilePath));
+            return new MachineIdLease(store, state.getOwner(), state.getSlot(), state.getExpireMillis(),
+                    leaseSeconds, slotCount, onChange, stateFile, 0);
+        }
+
+        String owner = newOwner();
+        long now = System.currentTimeMillis();
+        int slot;
+        try {
+            slot = store.acquire(owner, leaseSeconds, slotCount);
+        } catch (RuntimeException e) {
+            if (null != stateFile) {
+                stateFile.unlock();
+            }
+            throw e;
+        }
+        return new MachineIdLease(store, owner, slot, now + leaseSeconds * 1000L, leaseSeconds, slotCount,
+                onChange, stateFile, -1);
+    }
+
+    /**
+     * Stop renewing but keep the slot, so that a restart can resume it from the
+     * state file while it is valid. No ids are to be issued with it afterwards,
+     * the time is kept for the restart.
+     */
+    public void stop() {
+        renewer.shutdownNow();
+        if (null != stateFile) {
+            stateFile.save(slot, owner, expireMillis, System.currentTimeMillis());
+            stateFile.unlock();
+        }
+    }
+
+    /**
+     * At shutdown: keep the slot if it is kept in a state file, or give it back.
+     */
+    public void shutdown() {
+        if (null != stateFile) {
+            stop();
+        } else {
+            close();
+        }
+    }
+
+    /**
+     * Stop renewing and give the slot back; the listener is told 0 first.
+     */
+    @Override
+    public void close() {
+        renewer.shutdownNow();
+        suspend();
+        if (null != stateFile) {
+            stateFile.delete();
+            stateFile.unlock();
+        }
+        try {
+            store.release(slot, owner);
+        } catch (Exception e) {
+            log.warn("[febs-identify] release machine id error", e);
+        }
+    }
+
+    private void renew() {
+        long now = System.currentTimeMillis();
+        try {
+            if (store.renew(slot, owner, leaseSeconds)) {
+                expireMillis = now + leaseSeconds * 1000L;
+                save();
+                if (suspended) {
+                    log.info(String.format("[febs-identify] the lease of machine id %s is renewed", slot));
+                    suspended = false;
+                    onChange.accept(slot);
+                }
+                return;
+            }
+            log.error(String.format("[febs-identify] the lease of machine id %s was lost, lease a new one", slot));
+            suspend();
+            slot = store.acquire(owner, leaseSeconds, slotCount);
+            expireMillis = now + leaseSeconds * 1000L;
+            save();
+            suspended = false;
+            onChange.accept(slot);
+        } catch (Exception e) {
+            if (now + 2 * periodMillis >= expireMillis) {
+                // the next renewal is the last before the expiry, and runs late by the delay of this one.
+                log.error(String.format("[febs-identify] the lease of machine id %s expires before it can be renewed,"
+                        + " stop issuing ids", slot), e);
+                suspend();
+            } else {
+                log.warn("[febs-identify] renew machine id error", e);
+            }
+        }
+    }
+
+    private void suspend() {
+        if (!suspended) {
+            suspended = true;
+            onChange.accept(0);
+        }
+    }
+
+    private void save() {
+        if (null != stateFile) {
+            stateFile.save(slot, owner, expireMillis, 0);
+        }
+    }
+
+    /**
+     * The previous run issued ids with the slot until it stopped, or until it
+     * ended if it was killed: before this JVM started, or at the latest before
+     * the state file could be locked. Start issuing in a later second than that.
+     *
+     * @param released when the previous run stopped in millis, or 0.
+     */
+    private static void waitAfterPreviousRun(long released) {
+        long now = System.currentTimeMillis();
+        long last = Math.max(released > 0 ? released : now, ManagementFactory.getRuntimeMXBean().getStartTime());
+        long wait = (last / 1000 + 1) * 1000 - now;
+        if (wait > 0) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(wait));
+        }
+    }
+
+    private static String newOwner() {
+        String owner = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+        return owner.length() > 128 ? owner.substring(owner.length() - 128) : owner;
+    }
+}
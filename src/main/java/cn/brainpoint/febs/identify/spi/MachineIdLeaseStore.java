@@ -0,0 +1,37 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/16 10:05
+ * Desc:
+ */
+package cn.brainpoint.febs.identify.spi;
+
+/**
+ * Where the slots of machine id leases are kept, e.g. a database table.
+ */
+public interface MachineIdLeaseStore {
+
+    /**
+     * Take a free slot, the one expired for the longest time.
+     *
+     * @param owner        who owns the slot.
+     * @param leaseSeconds how long the lease lasts.
+     * @param slotCount    the slots are 1..slotCount.
+     * @return the slot, it is the machine id.
+     * @throws cn.brainpoint.febs.identify.exception.DBException if no slot can be
+     *                                                            taken.
+     */
+    int acquire(String owner, int leaseSeconds, int slotCount);
+
+    /**
+     * Extend the lease of a slot.
+     *
+     * @return false if the slot is not owned by the owner anymore.
+     */
+    boolean renew(int slot, String owner, int leaseSeconds);
+
+    /**
+     * Give a slot back.
+     */
+    void release(int slot, String owner);
+}
@@ -0,0 +1,52 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/16 09:30
+ * Desc:
+ */
+package cn.brainpoint.febs.identify.spi;
+
+import java.util.function.IntConsumer;
+
+import cn.brainpoint.febs.identify.IdentifyCfg;
+
+/**
+ * Assign the machine id of this process.
+ *
+ * Providers are loaded by ServiceLoader from
+ * META-INF/services/cn.brainpoint.febs.identify.spi.MachineIdProvider; the first
+ * one that supports the IdentifyCfg is used by Identify.initializeByDatabase().
+ */
+public interface MachineIdProvider {
+
+    /**
+     * @param cfg the configuration.
+     * @return whether this provider handles it, e.g. by IdentifyCfg.getType().
+     */
+    boolean supports(IdentifyCfg cfg);
+
+    /**
+     * Assign a machine id, between 1 and 16777214. It is kept until release().
+     *
+     * @param cfg      the configuration.
+     * @param onChange told about a new machine id if the provider has to change
+     *                 it, e.g. a lost lease; told 0 while the machine id must
+     *                 not be used, e.g. a lease that cannot be renewed in time.
+     * @return the machine id.
+     * @throws cn.brainpoint.febs.identify.exception.DBException if no machine id
+     *                                                            can be assigned.
+     */
+    int acquire(IdentifyCfg cfg, IntConsumer onChange);
+
+    /**
+     * Give the machine id back. Identify stops issuing ids with it before.
+     */
+    void release();
+
+    /**
+     * The process is shutting down. The default gives the machine id back.
+     */
+    default void shutdown() {
+        release();
+    }
+}
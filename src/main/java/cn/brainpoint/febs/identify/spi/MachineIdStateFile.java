@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/7/14 16:40
+ * Desc:
+ */
+package cn.brainpoint.febs.identify.spi;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The leased machine id kept in a local file, so that a restart on the same
+ * host can reuse it without a database round-trip while the lease is valid.
+ *
+ * The file is replaced atomically (write a temp file, then move it over), and
+ * a lock file is held while the process lives, so that two processes sharing
+ * the file never reuse the same machine id.
+ */
+@Slf4j
+final class MachineIdStateFile {
+
+    private static final String KEY_SOURCE = "source";
+    private static final String KEY_SLOT = "machineId";
+    private static final String KEY_OWNER = "owner";
+    private static final String KEY_EXPIRE = "leaseExpireMillis";
+    private static final String KEY_RELEASED = "releasedMillis";
+
+    @Getter
+    @AllArgsConstructor
+    static final class State {
+        private final int slot;
+        private final String owner;
+        private final long expireMillis;
+        /**
+         * when the previous run stopped issuing ids in millis, or 0 if it did
+         * not stop (e.g. it was killed).
+         */
+        private final long releasedMillis;
+    }
+
+    private final Path path;
+    /**
+     * where the machine id comes from (url and table), a state of another
+     * source is ignored.
+     */
+    private final String source;
+    private FileChannel lockChannel;
+    private FileLock lock;
+
+    MachineIdStateFile(String path, String source) {
+        this.path = Paths.get(path).toAbsolutePath();
+        this.source = source;
+    }
+
+    /**
+     * Lock the state for this process.
+     *
+     * @return false if another process holds it.
+     */
+    synchronized boolean lock() {
+        if (null != lock) {
+            return true;
+        }
+        try {
+            Path parent = path.getParent();
+            if (null != parent) {
+                Files.createDirectories(parent);
+            }
+            lockChannel = FileChannel.open(Paths.get(path + ".lock"), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE);
+            lock = lockChannel.tryLock();
+        } catch (IOException | OverlappingFileLockException e) {
+            log.warn("[febs-identify] lock machine id state error: " + e.getMessage());
+        }
+        if (null == lock) {
+            closeChannel();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the state, or null if there is none of the source.
+     */
+    State load() {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(path)) {
+            properties.load(in);
+            if (!source.equals(properties.getProperty(KEY_SOURCE))) {
+                return null;
+            }
+            return new State(Integer.parseInt(properties.getProperty(KEY_SLOT)), properties.getProperty(KEY_OWNER),
+                    Long.parseLong(properties.getProperty(KEY_EXPIRE)),
+                    Long.parseLong(properties.getProperty(KEY_RELEASED, "0")));
+        } catch (IOException | RuntimeException e) {
+            log.warn("[febs-identify] read machine id state error: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @param releasedMillis when this process stopped issuing ids, or 0 while it
+     *                       issues them.
+     */
+    void save(int slot, String owner, long expireMillis, long releasedMillis) {
+        Properties properties = new Properties();
+        properties.setProperty(KEY_SOURCE, source);
+        properties.setProperty(KEY_SLOT, String.valueOf(slot));
+        properties.setProperty(KEY_OWNER, owner);
+        properties.setProperty(KEY_EXPIRE, String.valueOf(expireMillis));
+        properties.setProperty(KEY_RELEASED, String.valueOf(releasedMillis));
+
+        Path temp = Paths.get(path + ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                properties.store(out, "febs-identify machine id");
+            }
+            try {
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            log.warn("[febs-identify] write machine id state error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Forget the state, e.g. after the machine id was released.
+     */
+    void delete() {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("[febs-identify] delete machine id state error: " + e.getMessage());
+        }
+    }
+
+    synchronized void unlock() {
+        try {
+            if (null != lock) {
+                lock.release();
+            }
+        } catch (IOException e) {
+            log.warn("[febs-identify] unlock machine id state error: " + e.getMessage());
+        }
+        lock = null;
+        closeChannel();
+    }
+
+    private void closeChannel() {
+        try {
+            if (null != lockChannel) {
+                lockChannel.close();
+            }
+        } catch (IOException e) {
+            log.warn("[febs-identify] close machine id state error: " + e.getMessage());
+        }
+        lockChannel = null;
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/8/8 16:40
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * A BinaryId is the hex id in binary: it renders the same hex and bytes, reads
+ * back the parts, and orders like the hex strings.
+ */
+public class BinaryIdTest {
+
+    private static final String NOPID = "5f27a2c0abcdef123456";
+    private static final String PID = "5f27a2c0abcdef1234123456";
+
+    @Test
+    public void partsOfTheNoPidLayout() {
+        BinaryId id = BinaryId.parse(NOPID);
+        assertEquals(0x5f27a2c0L, id.getTimestamp());
+        assertEquals(0x00abcdef, id.getMachineId());
+        assertEquals(0x123456, id.getCounter());
+        assertEquals(0, id.getPid());
+        assertEquals(ObjectId.OBJECT_ID_LENGTH_NOPID, id.length());
+        assertEquals(NOPID, id.toHexString());
+    }
+
+    @Test
+    public void partsOfThePidLayout() {
+        BinaryId id = BinaryId.parse(PID);
+        assertEquals(0x00abcdef, id.getMachineId());
+        assertEquals(0x1234, id.getPid());
+        assertEquals(0x123456, id.getCounter());
+        assertEquals(PID, id.toString());
+    }
+
+    @Test
+    public void bytesRoundTrip() {
+        for (String hex : new String[] { NOPID, PID }) {
+            BinaryId id = BinaryId.parse(hex);
+            byte[] bytes = id.toByteArray();
+            assertEquals(id, BinaryId.fromBytes(bytes));
+
+            ByteBuffer buffer = ByteBuffer.allocate(bytes.length + 2);
+            buffer.position(2);
+            id.putToByteBuffer(buffer);
+            assertArrayEquals(bytes, Arrays.copyOfRange(buffer.array(), 2, buffer.capacity()));
+            assertEquals(id, BinaryId.fromBytes(buffer.array(), 2, bytes.length));
+        }
+    }
+
+    @Test
+    public void ordersLikeTheHex() {
+        Random random = new Random(7);
+        for (int i = 0; i < 10000; i++) {
+            String a = randomHex(random);
+            String b = randomHex(random);
+            BinaryId x = BinaryId.parse(a);
+            BinaryId y = BinaryId.parse(b);
+            assertEquals(a + " " + b, Integer.signum(a.compareTo(b)), Integer.signum(x.compareTo(y)));
+            assertEquals(a.equals(b), x.equals(y));
+            if (a.equals(b)) {
+                assertEquals(x.hashCode(), y.hashCode());
+            }
+        }
+        assertNotEquals(BinaryId.parse(NOPID), BinaryId.parse(PID));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrongLengthIsRejected() {
+        BinaryId.parse("5f27a2c0abcdef12345");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void notHexIsRejected() {
+        BinaryId.parse("5f27a2c0abcdef12345g");
+    }
+
+    /**
+     * Ids with the top bit set, and some with a common prefix.
+     */
+    private static String randomHex(Random random) {
+        StringBuilder sb = new StringBuilder(random.nextBoolean() ? "f" : "1");
+        int length = random.nextBoolean() ? ObjectId.OBJECT_ID_LENGTH_NOPID * 2 : ObjectId.OBJECT_ID_LENGTH * 2;
+        while (sb.length() < length) {
+            sb.append(Character.forDigit(random.nextInt(random.nextInt(4) == 0 ? 1 : 16), 16));
+        }
+        return sb.toString();
+    }
+}
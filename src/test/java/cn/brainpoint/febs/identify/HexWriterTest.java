@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/8/9 15:10
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import cn.brainpoint.febs.identify.clock.ManualIdClock;
+
+/**
+ * The hex ASCII writers put the same ids as nextId() into bytes, heap and
+ * direct buffers, and streams, without touching anything around them.
+ */
+public class HexWriterTest {
+
+    private static final long EPOCH = 1596420000L;
+    private static final int LENGTH = ObjectId.OBJECT_ID_LENGTH_NOPID * 2;
+
+    private IdGenerator generator;
+
+    @Before
+    public void setUp() {
+        generator = new IdGenerator("ascii", 0x00fedcba);
+        generator.setClock(new ManualIdClock(EPOCH));
+    }
+
+    @Test
+    public void writersAreConsecutive() throws IOException {
+        byte[] bytes = new byte[LENGTH + 2];
+        assertEquals(1 + LENGTH, generator.nextId(bytes, 1));
+        assertEquals(0, bytes[0]);
+        assertEquals(0, bytes[1 + LENGTH]);
+
+        ByteBuffer heap = ByteBuffer.allocate(LENGTH + 3);
+        heap.position(3);
+        assertEquals(heap, generator.nextId(heap));
+        assertEquals(3 + LENGTH, heap.position());
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(LENGTH);
+        generator.nextId(direct);
+        assertEquals(LENGTH, direct.position());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        generator.nextId(out);
+
+        String[] ids = { ascii(bytes, 1), ascii(heap.array(), 3), ascii(direct), out.toString("US-ASCII") };
+        int first = BinaryId.parse(ids[0]).getCounter();
+        for (int i = 0; i < ids.length; i++) {
+            assertTrue(ids[i], IdValidator.NOPID.isValid(ids[i]));
+            BinaryId id = BinaryId.parse(ids[i]);
+            assertEquals(EPOCH, id.getTimestamp());
+            assertEquals(0x00fedcba, id.getMachineId());
+            assertEquals((first + i) & 0x00ffffff, id.getCounter());
+        }
+        assertTrue(IdValidator.NOPID.isValid(bytes, 1, 1));
+    }
+
+    @Test
+    public void pidLayoutIntoABuffer() {
+        ByteBuffer buffer = ByteBuffer.allocate(ObjectId.OBJECT_ID_LENGTH * 2);
+        ObjectId.generateHex(0x00abcdef, (short) 0x1234, buffer);
+        BinaryId id = BinaryId.parse(new String(buffer.array(), StandardCharsets.US_ASCII));
+        assertEquals(0x00abcdef, id.getMachineId());
+        assertEquals(0x1234, id.getPid());
+    }
+
+    @Test
+    public void shortDestinationsAreRejected() {
+        ByteBuffer buffer = ByteBuffer.allocate(LENGTH - 1);
+        for (Runnable write : new Runnable[] { () -> generator.nextId(new byte[LENGTH], 1),
+                () -> generator.nextId(buffer) }) {
+            try {
+                write.run();
+                fail("a destination without room for an id must be rejected");
+            } catch (IllegalArgumentException e) {
+                // expected.
+            }
+        }
+        assertEquals(0, buffer.position());
+    }
+
+    private static String ascii(byte[] bytes, int off) {
+        return new String(bytes, off, LENGTH, StandardCharsets.US_ASCII);
+    }
+
+    private static String ascii(ByteBuffer direct) {
+        byte[] bytes = new byte[LENGTH];
+        direct.flip();
+        direct.get(bytes);
+        return ascii(bytes, 0);
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/8/3 14:10
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * The columns decoded by every overload of IdDecoder are the fields the ids
+ * were rendered from, and an invalid id is reported at its index.
+ */
+public class IdDecoderTest {
+
+    private static final int COUNT = 1000;
+
+    @Test
+    public void decodeNoPid() {
+        Random random = new Random(1);
+        int[] seconds = new int[COUNT];
+        int[] machineIds = new int[COUNT];
+        int[] counters = new int[COUNT];
+        StringBuilder sb = new StringBuilder();
+        for (int n = 0; n < COUNT; n++) {
+            seconds[n] = n == 0 ? 0 : n == 1 ? -1 : random.nextInt();
+            machineIds[n] = n == 1 ? 0xffffff : random.nextInt(1 << 24);
+            counters[n] = n == 1 ? 0xffffff : random.nextInt(1 << 24);
+            sb.append(String.format("%08x%06x%06x", seconds[n], machineIds[n], counters[n]));
+        }
+        String text = sb.toString();
+        String[] ids = split(text, 20);
+        byte[] ascii = text.getBytes(StandardCharsets.US_ASCII);
+
+        int[] s = new int[COUNT];
+        int[] m = new int[COUNT];
+        int[] c = new int[COUNT];
+        IdDecoder.decode(ids, 0, COUNT, s, m, c);
+        assertColumns(seconds, machineIds, counters, s, m, c);
+        IdDecoder.decode(ascii, 0, COUNT, s = new int[COUNT], m = new int[COUNT], c = new int[COUNT]);
+        assertColumns(seconds, machineIds, counters, s, m, c);
+        for (ByteBuffer buffer : buffers(ascii)) {
+            IdDecoder.decode(buffer, COUNT, s = new int[COUNT], m = new int[COUNT], c = new int[COUNT]);
+            assertColumns(seconds, machineIds, counters, s, m, c);
+        }
+        for (int n = 0; n < COUNT; n += 97) {
+            BinaryId id = BinaryId.parse(ids[n]);
+            assertEquals(seconds[n] & 0xffffffffL, id.getTimestamp());
+            assertEquals(machineIds[n], id.getMachineId());
+            assertEquals(counters[n], id.getCounter());
+        }
+    }
+
+    @Test
+    public void decodePid() {
+        Random random = new Random(2);
+        int[] seconds = new int[COUNT];
+        int[] machineIds = new int[COUNT];
+        short[] pids = new short[COUNT];
+        int[] counters = new int[COUNT];
+        StringBuilder sb = new StringBuilder();
+        for (int n = 0; n < COUNT; n++) {
+            seconds[n] = random.nextInt();
+            machineIds[n] = random.nextInt(1 << 24);
+            pids[n] = (short) random.nextInt();
+            counters[n] = random.nextInt(1 << 24);
+            sb.append(String.format("%08x%06x%04x%06x", seconds[n], machineIds[n], pids[n], counters[n]));
+        }
+        String text = sb.toString();
+        byte[] ascii = text.getBytes(StandardCharsets.US_ASCII);
+
+        int[] s = new int[COUNT];
+        int[] m = new int[COUNT];
+        short[] p = new short[COUNT];
+        int[] c = new int[COUNT];
+        IdDecoder.decode(split(text, 24), 0, COUNT, s, m, p, c);
+        assertColumns(seconds, machineIds, counters, s, m, c);
+        assertArrayEquals(pids, p);
+        IdDecoder.decode(ascii, 0, COUNT, s = new int[COUNT], m = new int[COUNT], p = new short[COUNT],
+                c = new int[COUNT]);
+        assertColumns(seconds, machineIds, counters, s, m, c);
+        assertArrayEquals(pids, p);
+        for (ByteBuffer buffer : buffers(ascii)) {
+            IdDecoder.decode(buffer, COUNT, s = new int[COUNT], m = new int[COUNT], p = new short[COUNT],
+                    c = new int[COUNT]);
+            assertColumns(seconds, machineIds, counters, s, m, c);
+            assertArrayEquals(pids, p);
+        }
+    }
+
+    @Test
+    public void invalidIdIsReportedAtItsIndex() {
+        Random random = new Random(3);
+        for (int round = 0; round < 200; round++) {
+            StringBuilder sb = new StringBuilder();
+            for (int n = 0; n < 16; n++) {
+                sb.append(String.format("%08x%06x%06x", random.nextInt(), random.nextInt(1 << 24),
+                        random.nextInt(1 << 24)));
+            }
+            int bad = random.nextInt(16);
+            int at = bad * 20 + random.nextInt(20);
+            // a char next to the ranges of the digits, an uppercase or a non-ASCII one.
+            sb.setCharAt(at, "/:`gAF\u0080\u00ff".charAt(random.nextInt(8)));
+            String text = sb.toString();
+            byte[] ascii = text.getBytes(StandardCharsets.ISO_8859_1);
+
+            expectInvalid(bad, () -> IdDecoder.decode(split(text, 20), 0, 16, new int[16], new int[16],
+                    new int[16]));
+            expectInvalid(bad, () -> IdDecoder.decode(ascii, 0, 16, new int[16], new int[16], new int[16]));
+            for (ByteBuffer buffer : buffers(ascii)) {
+                expectInvalid(bad, () -> IdDecoder.decode(buffer, 16, new int[16], new int[16], new int[16]));
+            }
+        }
+    }
+
+    private static void expectInvalid(int index, Runnable decode) {
+        try {
+            decode.run();
+            fail("decoded an invalid id at " + index);
+        } catch (IllegalArgumentException e) {
+            assertEquals("invalid id at " + index, e.getMessage());
+        }
+    }
+
+    private static void assertColumns(int[] seconds, int[] machineIds, int[] counters, int[] s, int[] m, int[] c) {
+        assertArrayEquals(seconds, s);
+        assertArrayEquals(machineIds, m);
+        assertArrayEquals(counters, c);
+    }
+
+    private static String[] split(String text, int length) {
+        String[] ids = new String[text.length() / length];
+        for (int n = 0; n < ids.length; n++) {
+            ids[n] = text.substring(n * length, (n + 1) * length);
+        }
+        return ids;
+    }
+
+    /**
+     * The bytes at position 5 of a heap buffer and of direct buffers of both
+     * byte orders.
+     */
+    private static ByteBuffer[] buffers(byte[] ascii) {
+        byte[] shifted = new byte[ascii.length + 5];
+        System.arraycopy(ascii, 0, shifted, 5, ascii.length);
+        ByteBuffer heap = ByteBuffer.wrap(shifted);
+        heap.position(5);
+        ByteBuffer big = ByteBuffer.allocateDirect(shifted.length);
+        big.put(shifted).position(5);
+        ByteBuffer little = ByteBuffer.allocateDirect(shifted.length).order(ByteOrder.LITTLE_ENDIAN);
+        little.put(shifted).position(5);
+        return new ByteBuffer[] { heap, big, little };
+    }
+}
@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/8/3 11:05
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Round trips and the order of the text encodings, over random and extreme
+ * ids of both layouts.
+ */
+public class IdEncodingTest {
+
+    private static final int ROUNDS = 20000;
+
+    @Test
+    public void roundTrip() {
+        for (IdEncoding encoding : IdEncoding.values()) {
+            for (BinaryId id : ids(new Random(1))) {
+                String text = encoding.encode(id);
+                assertEquals(encoding.length(id.length()), text.length());
+                assertTrue(text, encoding.isValid(text));
+                assertTrue(text, encoding.isValid(text, id.length()));
+                assertEquals(text, id, encoding.decode(text));
+
+                char[] chars = new char[text.length() + 2];
+                assertEquals(chars.length - 1, encoding.encode(id, chars, 1));
+                assertEquals(text, new String(chars, 1, text.length()));
+                byte[] bytes = new byte[text.length() + 2];
+                assertEquals(bytes.length - 1, encoding.encode(id, bytes, 1));
+                assertEquals(text, new String(bytes, 1, text.length()));
+            }
+        }
+    }
+
+    @Test
+    public void hexIsTheTextOfBinaryId() {
+        for (BinaryId id : ids(new Random(2))) {
+            assertEquals(id.toHexString(), IdEncoding.HEX.encode(id));
+        }
+    }
+
+    @Test
+    public void textOrderIsIdOrder() {
+        for (IdEncoding encoding : IdEncoding.values()) {
+            for (int bytes : new int[] { ObjectId.OBJECT_ID_LENGTH_NOPID, ObjectId.OBJECT_ID_LENGTH }) {
+                List<BinaryId> ids = new ArrayList<>();
+                for (BinaryId id : ids(new Random(3))) {
+                    if (id.length() == bytes) {
+                        ids.add(id);
+                    }
+                }
+                BinaryId[] sorted = ids.toArray(new BinaryId[0]);
+                Arrays.sort(sorted);
+                String[] texts = new String[sorted.length];
+                for (int i = 0; i < sorted.length; i++) {
+                    texts[i] = encoding.encode(sorted[i]);
+                }
+                String[] sortedTexts = texts.clone();
+                Arrays.sort(sortedTexts);
+                assertArrayEquals(encoding + " " + bytes, texts, sortedTexts);
+            }
+        }
+    }
+
+    @Test
+    public void base32ReadsLowercaseAndAliases() {
+        for (BinaryId id : ids(new Random(4))) {
+            String text = IdEncoding.BASE32.encode(id);
+            assertEquals(id, IdEncoding.BASE32.decode(text.toLowerCase()));
+            assertEquals(id, IdEncoding.BASE32.decode(text.replace('1', 'L').replace('0', 'O')));
+            if (!text.equals(text.toLowerCase())) {
+                assertFalse(text, IdEncoding.BASE32.isValid(text.toLowerCase()));
+            }
+        }
+    }
+
+    @Test
+    public void invalidTextIsRejected() {
+        Random random = new Random(5);
+        // around the ranges of digits and letters, invalid in every encoding.
+        String invalid = "!/:@[`{~ -\u00e9";
+        for (IdEncoding encoding : IdEncoding.values()) {
+            for (BinaryId id : ids(random)) {
+                String text = encoding.encode(id);
+                int at = random.nextInt(text.length());
+                String bad = text.substring(0, at) + invalid.charAt(random.nextInt(invalid.length()))
+                        + text.substring(at + 1);
+                assertFalse(bad, encoding.isValid(bad));
+                expectInvalid(encoding, bad);
+            }
+            expectInvalid(encoding, "");
+            expectInvalid(encoding, encoding.encode(ids(random).get(0)) + "0");
+        }
+        assertFalse(IdEncoding.HEX.isValid("0123456789abcdefghij"));
+        expectInvalid(IdEncoding.BASE32, "0123456789ABCDEU");
+    }
+
+    private static void expectInvalid(IdEncoding encoding, String text) {
+        try {
+            encoding.decode(text);
+            fail(encoding + " decoded " + text);
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Random ids of both layouts, and the smallest and largest of each.
+     */
+    private static List<BinaryId> ids(Random random) {
+        List<BinaryId> ids = new ArrayList<>();
+        for (int bytes : new int[] { ObjectId.OBJECT_ID_LENGTH_NOPID, ObjectId.OBJECT_ID_LENGTH }) {
+            byte[] zero = new byte[bytes];
+            byte[] ones = new byte[bytes];
+            Arrays.fill(ones, (byte) 0xff);
+            ids.add(BinaryId.fromBytes(zero));
+            ids.add(BinaryId.fromBytes(ones));
+        }
+        for (int i = 0; i < ROUNDS; i++) {
+            int length = random.nextBoolean() ? ObjectId.OBJECT_ID_LENGTH_NOPID : ObjectId.OBJECT_ID_LENGTH;
+            byte[] bytes = new byte[length];
+            random.nextBytes(bytes);
+            ids.add(BinaryId.fromBytes(bytes));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/8/9 10:40
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import cn.brainpoint.febs.identify.clock.ManualIdClock;
+
+/**
+ * Namespaces with prefix bits never issue the same id with the same machine
+ * id, and the registry hands out one generator per namespace.
+ */
+public class IdGeneratorTest {
+
+    private static final long EPOCH = 1596420000L;
+
+    @Test
+    public void prefixesNeverOverlap() {
+        ManualIdClock clock = new ManualIdClock(EPOCH);
+        IdGenerator[] generators = new IdGenerator[4];
+        for (int i = 0; i < generators.length; i++) {
+            generators[i] = new IdGenerator("prefix-" + i, 3, 2, i);
+            generators[i].setClock(clock);
+        }
+        Set<String> ids = new HashSet<>();
+        Set<Long> longIds = new HashSet<>();
+        for (int n = 0; n < 10000; n++) {
+            for (int i = 0; i < generators.length; i++) {
+                String id = generators[i].nextId();
+                assertTrue(id, ids.add(id));
+                assertEquals(i, BinaryId.parse(id).getCounter() >>> 22);
+                assertTrue(longIds.add(generators[i].nextLongId()));
+            }
+        }
+    }
+
+    @Test
+    public void registryByNamespace() {
+        IdGenerator orders = IdGenerator.of("orders");
+        assertSame(orders, IdGenerator.of("orders"));
+        assertSame(IdGenerator.getDefault(), IdGenerator.of(IdGenerator.DEFAULT_NAMESPACE));
+
+        IdGenerator users = IdGenerator.register(new IdGenerator("users", 8));
+        assertSame(users, IdGenerator.of("users"));
+        assertSame(users, IdGenerator.register(users));
+        try {
+            IdGenerator.register(new IdGenerator("users", 9));
+            fail("a namespace is registered once");
+        } catch (IllegalArgumentException e) {
+            // expected.
+        }
+    }
+
+    @Test
+    public void machineIdOfIdentifyByDefault() {
+        assertEquals(IdGenerator.getDefault().getMachineId(), new IdGenerator("shared").getMachineId());
+        assertEquals(8, new IdGenerator("own", 8).getMachineId());
+    }
+
+    @Test
+    public void invalidArgumentsAreRejected() {
+        for (Runnable invalid : new Runnable[] { () -> new IdGenerator(""),
+                () -> new IdGenerator("wide", 1, 17, 0), () -> new IdGenerator("big", 1, 2, 4) }) {
+            try {
+                invalid.run();
+                fail("must be rejected");
+            } catch (IllegalArgumentException e) {
+                // expected.
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/8/9 14:30
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * The metrics count the ids of Identify, and are served by the MXBean.
+ */
+public class IdMetricsTest {
+
+    @After
+    public void tearDown() {
+        Identify.unregisterMBean();
+    }
+
+    @Test
+    public void batchesAreCounted() {
+        Identify.initializeByMachineId(21);
+        IdMetrics before = Identify.getMetrics();
+        Identify.nextIds(1000);
+        IdMetrics after = Identify.getMetrics();
+
+        assertEquals(IdentifyState.READY.name(), after.getState());
+        assertEquals(21, after.getMachineId());
+        assertEquals(before.getIdsIssued() + 1000, after.getIdsIssued());
+        assertEquals(Sequencer.MAX_RESERVE, after.getCounterCapacity());
+        assertTrue(after.getCounterPeakUsage() >= after.getCounterUsage());
+        assertTrue(after.toString().contains("machineId=21"));
+    }
+
+    @Test
+    public void servedByTheMXBean() throws Exception {
+        Identify.initializeByMachineId(21);
+        assertTrue(Identify.registerMBean());
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(Identify.OBJECT_NAME);
+        assertEquals(21, server.getAttribute(name, "MachineId"));
+        long issued = (Long) server.getAttribute(name, "IdsIssued");
+        Identify.nextIds(10);
+        assertEquals(issued + 10, server.getAttribute(name, "IdsIssued"));
+
+        Identify.unregisterMBean();
+        assertFalse(server.isRegistered(name));
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/8/3 15:00
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import cn.brainpoint.febs.identify.clock.ManualIdClock;
+
+/**
+ * The ids taken from an IdRing are unique, of the machine id asked for, and
+ * not older than the staleness bound.
+ */
+public class IdRingTest {
+
+    private static final long EPOCH = 1596420000L;
+    private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private ManualIdClock clock;
+    private IdGenerator generator;
+    private IdRing ring;
+
+    @Before
+    public void setUp() {
+        clock = new ManualIdClock(EPOCH);
+        generator = new IdGenerator("ring", 7);
+        generator.setClock(clock);
+        ring = new IdRing(64, 1, generator);
+    }
+
+    @After
+    public void tearDown() {
+        ring.stop();
+    }
+
+    @Test
+    public void idsAreUniqueAndOfTheMachine() {
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 10 * ring.capacity(); i++) {
+            String id = take(7);
+            assertTrue(id, IdValidator.NOPID.isValid(id));
+            assertTrue(id, ids.add(id));
+            BinaryId binary = BinaryId.parse(id);
+            assertEquals(7, binary.getMachineId());
+            assertEquals(EPOCH, binary.getTimestamp());
+        }
+    }
+
+    @Test
+    public void idsOfAnotherMachineAreDiscarded() {
+        take(7);
+        generator.setMachineId(8);
+        for (int i = 0; i < 2 * ring.capacity(); i++) {
+            assertEquals(8, BinaryId.parse(take(8)).getMachineId());
+        }
+        assertTrue(ring.getDiscardCount() > 0);
+    }
+
+    @Test
+    public void staleIdsAreDiscarded() {
+        take(7);
+        clock.advance(5);
+        // until the filler moves the bound, the ids of the old second may be taken.
+        while (BinaryId.parse(take(7)).getTimestamp() < EPOCH + 4) {
+            Thread.yield();
+        }
+        for (int i = 0; i < 2 * ring.capacity(); i++) {
+            assertTrue(BinaryId.parse(take(7)).getTimestamp() >= EPOCH + 4);
+        }
+        assertTrue(ring.getDiscardCount() > 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void depthIsBounded() {
+        new IdRing(1, 1, generator);
+    }
+
+    /**
+     * Poll until the filler has put an id.
+     */
+    private String take(int machineId) {
+        long deadline = System.nanoTime() + TIMEOUT_NANOS;
+        String id;
+        while (null == (id = ring.poll(machineId))) {
+            assertTrue("no id from the ring", System.nanoTime() < deadline);
+            Thread.yield();
+        }
+        return id;
+    }
+}
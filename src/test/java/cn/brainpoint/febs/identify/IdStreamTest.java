@@ -0,0 +1,66 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/8/9 10:10
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import cn.brainpoint.febs.identify.clock.ManualIdClock;
+
+/**
+ * The id streams give exactly count ids, unique in parallel as well, of the
+ * machine id of the generator.
+ */
+public class IdStreamTest {
+
+    private static final long EPOCH = 1596420000L;
+    private static final int COUNT = 200000;
+
+    private IdGenerator generator;
+
+    @Before
+    public void setUp() {
+        generator = new IdGenerator("stream", 11);
+        generator.setClock(new ManualIdClock(EPOCH));
+    }
+
+    @Test
+    public void parallelHexIsUnique() {
+        Set<String> ids = generator.idStream(COUNT).parallel().collect(Collectors.toSet());
+        assertEquals(COUNT, ids.size());
+        for (String id : ids) {
+            assertEquals(11, BinaryId.parse(id).getMachineId());
+        }
+    }
+
+    @Test
+    public void parallelBinaryIsUnique() {
+        Set<BinaryId> ids = generator.binaryIdStream(COUNT).parallel().collect(Collectors.toSet());
+        assertEquals(COUNT, ids.size());
+        assertTrue(ids.stream().allMatch(id -> id.getTimestamp() == EPOCH));
+    }
+
+    @Test
+    public void parallelLongIsUnique() {
+        LongIdLayout layout = generator.getLongIdLayout();
+        assertEquals(COUNT, generator.longIdStream(COUNT).parallel().distinct().count());
+        assertTrue(generator.longIdStream(1000).allMatch(id -> layout.machineIdOf(id) == 11));
+    }
+
+    @Test
+    public void sequentialAndEmpty() {
+        assertEquals(0, generator.idStream(0).count());
+        assertEquals(1000, generator.idStream(1000).distinct().count());
+        assertEquals(COUNT, generator.idStream(COUNT).parallel().count());
+    }
+}
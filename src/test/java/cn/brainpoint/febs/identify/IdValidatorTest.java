@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/8/3 11:40
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * The lookup table and the SWAR paths of IdValidator agree with a plain check
+ * of every char, for every byte value in every position.
+ */
+public class IdValidatorTest {
+
+    private static final int COUNT = 64;
+    private static final int ROUNDS = 2000;
+    private static final String DIGITS = "0123456789abcdef";
+
+    @Test
+    public void everyByteInEveryPosition() {
+        for (IdValidator validator : new IdValidator[] { IdValidator.NOPID, IdValidator.PID }) {
+            int length = validator.getLength();
+            for (int b = 0; b < 256; b++) {
+                for (int at = 0; at < length; at++) {
+                    byte[] ascii = hex(new Random(b * 31 + at), length, 1);
+                    ascii[at] = (byte) b;
+                    int expected = isHex(b) ? -1 : 0;
+                    assertEquals(b + " at " + at, expected, indexOfInvalid(validator, ascii, 1));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void firstInvalidOfABatch() {
+        Random random = new Random(1);
+        for (IdValidator validator : new IdValidator[] { IdValidator.NOPID, IdValidator.PID }) {
+            int length = validator.getLength();
+            for (int round = 0; round < ROUNDS; round++) {
+                byte[] ascii = hex(random, length, COUNT);
+                int expected = -1;
+                for (int n = COUNT - 1; n >= 0; n--) {
+                    if (random.nextInt(8) == 0) {
+                        int b = random.nextInt(256);
+                        ascii[n * length + random.nextInt(length)] = (byte) b;
+                        if (!isHex(b)) {
+                            expected = n;
+                        }
+                    }
+                }
+                assertEquals(expected, indexOfInvalid(validator, ascii, COUNT));
+            }
+        }
+    }
+
+    @Test
+    public void secondBounds() {
+        long now = ObjectId.getClock().currentSeconds();
+        IdValidator validator = new IdValidator(20, Instant.ofEpochSecond(now - 10), 2);
+        assertTrue(validator.isValid(String.format("%08x000001000000", now)));
+        assertTrue(validator.isValid(String.format("%08x000001000000", now - 10)));
+        assertFalse(validator.isValid(String.format("%08x000001000000", now - 11)));
+        assertFalse(validator.isValid(String.format("%08x000001000000", now + 60)));
+
+        byte[] ascii = String.format("%08x000001000000%08x000001000000", now, now + 60)
+                .getBytes(StandardCharsets.US_ASCII);
+        assertEquals(1, indexOfInvalid(validator, ascii, 2));
+    }
+
+    /**
+     * The index of the first invalid id by every overload, checked to agree.
+     */
+    private static int indexOfInvalid(IdValidator validator, byte[] ascii, int count) {
+        int length = validator.getLength();
+        int index = validator.indexOfInvalid(ascii, 0, count);
+
+        String text = new String(ascii, StandardCharsets.ISO_8859_1);
+        String[] ids = new String[count];
+        int first = -1;
+        for (int n = count - 1; n >= 0; n--) {
+            ids[n] = text.substring(n * length, (n + 1) * length);
+            if (!validator.isValid(ids[n])) {
+                first = n;
+            }
+        }
+        assertEquals(first, index);
+        assertEquals(index, validator.indexOfInvalid(ids, 0, count));
+
+        byte[] shifted = new byte[ascii.length + 3];
+        System.arraycopy(ascii, 0, shifted, 3, ascii.length);
+        assertEquals(index, validator.indexOfInvalid(shifted, 3, count));
+        ByteBuffer heap = ByteBuffer.wrap(shifted);
+        heap.position(3);
+        assertEquals(index, validator.indexOfInvalid(heap, count));
+        for (ByteOrder order : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN }) {
+            ByteBuffer direct = ByteBuffer.allocateDirect(shifted.length).order(order);
+            direct.put(shifted).position(3);
+            assertEquals(order.toString(), index, validator.indexOfInvalid(direct, count));
+            assertEquals(3, direct.position());
+        }
+        return index;
+    }
+
+    private static byte[] hex(Random random, int length, int count) {
+        byte[] ascii = new byte[length * count];
+        for (int i = 0; i < ascii.length; i++) {
+            ascii[i] = (byte) DIGITS.charAt(random.nextInt(16));
+        }
+        return ascii;
+    }
+
+    private static boolean isHex(int b) {
+        return DIGITS.indexOf(b) >= 0;
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/8/6 11:10
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.Test;
+
+import cn.brainpoint.febs.identify.exception.DBException;
+
+/**
+ * A database that cannot be reached fails initializeByDatabase() with an
+ * exception, the process keeps running. initializeAsync() retries only a
+ * failure to connect.
+ */
+public class InitializeTest {
+
+    @Test
+    public void unreachableDatabaseThrows() {
+        File missing = new File(System.getProperty("java.io.tmpdir"), "febs-identify-missing/ids");
+        IdentifyCfg cfg = new IdentifyCfg("h2", missing.getAbsolutePath() + ";IFEXISTS=TRUE", "sa", "", null, 0,
+                1000);
+        cfg.setPlainJdbc(true);
+        try {
+            Identify.initializeByDatabase(cfg);
+            fail("a database that cannot be reached must throw");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getCause() instanceof DBException);
+        }
+        assertEquals(IdentifyState.FAILED, Identify.getState());
+    }
+
+    @Test
+    public void unsupportedTypeThrows() {
+        try {
+            Identify.initializeByDatabase(new IdentifyCfg("oracle", "localhost:1521/ids", "sa", ""));
+            fail("an unsupported type must throw");
+        } catch (IllegalArgumentException e) {
+            assertEquals("unsupported type: oracle", e.getMessage());
+        }
+    }
+
+    @Test
+    public void asyncFailsAtOnceIfNotTransient() throws InterruptedException {
+        File missing = new File(System.getProperty("java.io.tmpdir"), "febs-identify-missing/ids");
+        IdentifyCfg cfg = new IdentifyCfg("h2", missing.getAbsolutePath() + ";IFEXISTS=TRUE", "sa", "");
+        cfg.setConnectDeadline(30000);
+        long elapsed = awaitFailure(Identify.initializeAsync(cfg));
+        assertTrue("no retry: " + elapsed, elapsed < 5000);
+        assertEquals(IdentifyState.FAILED, Identify.getState());
+    }
+
+    @Test
+    public void asyncRetriesAFailureToConnect() throws InterruptedException {
+        // nothing listens on port 1.
+        IdentifyCfg cfg = new IdentifyCfg("h2", "tcp://localhost:1/ids", "sa", "");
+        cfg.setConnectDeadline(1500);
+        long elapsed = awaitFailure(Identify.initializeAsync(cfg));
+        assertTrue("retried until the deadline: " + elapsed, elapsed >= 1000);
+        assertEquals(IdentifyState.FAILED, Identify.getState());
+    }
+
+    private static long awaitFailure(CompletableFuture<Integer> future) throws InterruptedException {
+        long begin = System.currentTimeMillis();
+        try {
+            future.get();
+            fail("a database that cannot be reached must fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof DBException);
+        }
+        return System.currentTimeMillis() - begin;
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/8/8 17:10
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import cn.brainpoint.febs.identify.clock.ManualIdClock;
+
+/**
+ * 64-bit ids are positive, increase within a second, and read back the second,
+ * the machine id and the sequence of their layout.
+ */
+public class LongIdLayoutTest {
+
+    private static final long EPOCH = 1596593000L;
+    private static final LongIdLayout LAYOUT = LongIdLayout.DEFAULT;
+
+    @Test
+    public void idsReadBackTheirParts() {
+        IdGenerator generator = new IdGenerator("long-layout", 4095);
+        generator.setClock(new ManualIdClock(EPOCH));
+        long last = -1;
+        for (int i = 0; i < 1000; i++) {
+            long id = generator.nextLongId();
+            assertTrue(id > last);
+            assertEquals(EPOCH, LAYOUT.secondOf(id));
+            assertEquals(4095, LAYOUT.machineIdOf(id));
+            assertTrue(id >= LAYOUT.minIdForSecond(EPOCH) && id <= LAYOUT.maxIdForSecond(EPOCH));
+            last = id;
+        }
+    }
+
+    @Test
+    public void composeRoundTrips() {
+        long id = LAYOUT.compose(EPOCH, 123, 456);
+        assertEquals(EPOCH, LAYOUT.secondOf(id));
+        assertEquals(123, LAYOUT.machineIdOf(id));
+        assertEquals(456, LAYOUT.sequenceOf(id));
+        assertEquals(1 << 20, LAYOUT.getSequencesPerSecond());
+        assertTrue(LAYOUT.maxIdForSecond(EPOCH) < LAYOUT.minIdForSecond(EPOCH + 1));
+    }
+
+    @Test
+    public void machineIdMustFit() {
+        IdGenerator generator = new IdGenerator("long-wide", 4096);
+        try {
+            generator.nextLongId();
+            fail("a machine id above 12 bits must be rejected");
+        } catch (IllegalStateException e) {
+            // expected.
+        }
+    }
+
+    @Test
+    public void timeMustFit() {
+        try {
+            LAYOUT.compose(LongIdLayout.DEFAULT_EPOCH_SECONDS - 1, 1, 0);
+            fail("a second before the epoch must be rejected");
+        } catch (IllegalStateException e) {
+            // expected.
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bitsMustAddUp() {
+        new LongIdLayout(31, 12, 21, LongIdLayout.DEFAULT_EPOCH_SECONDS);
+    }
+}
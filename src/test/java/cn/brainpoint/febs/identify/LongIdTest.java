@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/8/5 10:20
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import cn.brainpoint.febs.identify.clock.ManualIdClock;
+
+/**
+ * Long ids take their seconds from the Sequencer: a clock regression is
+ * handled by the ClockRegressionPolicy instead of parking, and counted in the
+ * metrics.
+ */
+public class LongIdTest {
+
+    private static final long EPOCH = 1596593000L;
+    // 16 sequences a second.
+    private static final LongIdLayout LAYOUT = new LongIdLayout(47, 12, 4, LongIdLayout.DEFAULT_EPOCH_SECONDS);
+
+    private ManualIdClock clock;
+    private IdGenerator generator;
+
+    @Before
+    public void setUp() {
+        clock = new ManualIdClock(EPOCH);
+        generator = new IdGenerator("long", 7);
+        generator.setClock(clock);
+        generator.setLongIdLayout(LAYOUT);
+    }
+
+    @Test
+    public void regressionIsRejected() {
+        AtomicLong reported = new AtomicLong();
+        generator.setClockRegressionListener((last, now) -> reported.set(last - now));
+        generator.nextLongId();
+        clock.set(EPOCH - 5);
+        try {
+            generator.nextLongId();
+            fail("a clock regression must be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected.
+        }
+        assertEquals(5, reported.get());
+        assertEquals(1, generator.getSequencer().getClockRegressionCount());
+    }
+
+    @Test(timeout = 10000)
+    public void regressionHoldsAndBorrows() {
+        generator.setClockRegressionPolicy(ClockRegressionPolicy.HOLD);
+        generator.setOverflowPolicy(OverflowPolicy.BORROW, 2);
+        long last = -1;
+        for (int i = 0; i < 16; i++) {
+            long id = generator.nextLongId();
+            assertEquals(EPOCH, LAYOUT.secondOf(id));
+            assertEquals(7, LAYOUT.machineIdOf(id));
+            assertTrue(id > last);
+            last = id;
+        }
+        // used up, and 5 seconds back: the newest second is held and the next borrowed.
+        clock.set(EPOCH - 5);
+        for (int i = 0; i < 16; i++) {
+            long id = generator.nextLongId();
+            assertEquals(EPOCH + 1, LAYOUT.secondOf(id));
+            assertTrue(id > last);
+            last = id;
+        }
+        Sequencer sequencer = generator.getSequencer();
+        assertEquals(1, sequencer.getClockRegressionCount());
+        assertEquals(1, sequencer.getBorrowCount());
+        assertEquals(0, sequencer.getParkCount());
+        assertEquals(32, sequencer.getIssuedCount());
+    }
+
+    @Test
+    public void streamIsCounted() {
+        assertEquals(40, generator.longIdStream(40).distinct().count());
+        Sequencer sequencer = generator.getSequencer();
+        assertEquals(40, sequencer.getIssuedCount());
+        // WRAP borrows like BORROW: 16 in the second and 2 seconds ahead.
+        assertEquals(2, sequencer.getBorrowCount());
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/8/9 11:20
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import cn.brainpoint.febs.identify.clock.ManualIdClock;
+
+/**
+ * In monotonic mode the ids of a process are strictly increasing, as text and
+ * as BinaryId, also when a second is used up or the clock moves on.
+ */
+public class MonotonicTest {
+
+    private static final long EPOCH = 1596420000L;
+
+    private ManualIdClock clock;
+
+    @Before
+    public void setUp() {
+        clock = new ManualIdClock(EPOCH);
+    }
+
+    @Test
+    public void increasingAcrossSeconds() {
+        // 256 counters a second, so that seconds are used up and borrowed.
+        IdGenerator generator = new IdGenerator("monotonic", 2, 16, 0);
+        generator.setClock(clock);
+        generator.setMonotonic(true);
+        generator.setOverflowPolicy(OverflowPolicy.BORROW, 8);
+        assertTrue(generator.isMonotonic());
+
+        String last = generator.nextId();
+        assertEquals(0, BinaryId.parse(last).getCounter());
+        for (int i = 1; i < 2000; i++) {
+            if (i % 500 == 0) {
+                clock.advance(1);
+            }
+            String id = generator.nextId();
+            assertTrue(last + " < " + id, last.compareTo(id) < 0);
+            assertTrue(BinaryId.parse(last).compareTo(BinaryId.parse(id)) < 0);
+            last = id;
+        }
+    }
+
+    @Test
+    public void increasingPerThreadAndUnique() throws InterruptedException {
+        IdGenerator generator = new IdGenerator("monotonic-threads", 2);
+        generator.setClock(clock);
+        generator.setMonotonic(true);
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        AtomicReference<String> error = new AtomicReference<>();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                String last = "";
+                for (int i = 0; i < 20000; i++) {
+                    String id = generator.nextId();
+                    if (last.compareTo(id) >= 0 || !ids.add(id)) {
+                        error.compareAndSet(null, last + " then " + id);
+                    }
+                    last = id;
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(error.get());
+        assertEquals(4 * 20000, ids.size());
+    }
+}
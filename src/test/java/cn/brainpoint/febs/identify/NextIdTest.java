@@ -0,0 +1,64 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/8/8 14:10
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import cn.brainpoint.febs.identify.clock.ManualIdClock;
+
+/**
+ * nextId() into chars or a builder renders the same ids as the String one:
+ * the second, the machine id, and the next counter, in place.
+ */
+public class NextIdTest {
+
+    private static final long EPOCH = 1596420000L;
+    private static final int LENGTH = ObjectId.OBJECT_ID_LENGTH_NOPID * 2;
+
+    private IdGenerator generator;
+
+    @Before
+    public void setUp() {
+        generator = new IdGenerator("next", 0x00abcdef);
+        generator.setClock(new ManualIdClock(EPOCH));
+    }
+
+    @Test
+    public void charsBuilderAndStringAreConsecutive() {
+        char[] chars = new char[LENGTH + 4];
+        Arrays.fill(chars, '-');
+        assertEquals(2 + LENGTH, generator.nextId(chars, 2));
+        assertEquals("--", new String(chars, 0, 2));
+        assertEquals("--", new String(chars, 2 + LENGTH, 2));
+
+        StringBuilder sb = new StringBuilder("id:");
+        assertEquals(sb, generator.nextId(sb));
+        assertEquals(3 + LENGTH, sb.length());
+
+        BinaryId first = BinaryId.parse(new String(chars, 2, LENGTH));
+        BinaryId second = BinaryId.parse(sb.substring(3));
+        BinaryId third = BinaryId.parse(generator.nextId());
+        for (BinaryId id : new BinaryId[] { first, second, third }) {
+            assertEquals(EPOCH, id.getTimestamp());
+            assertEquals(0x00abcdef, id.getMachineId());
+            assertTrue(id.toString(), IdValidator.NOPID.isValid(id.toString()));
+        }
+        assertEquals((first.getCounter() + 1) & 0x00ffffff, second.getCounter());
+        assertEquals((second.getCounter() + 1) & 0x00ffffff, third.getCounter());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void charsTooShortAreRejected() {
+        generator.nextId(new char[LENGTH], 1);
+    }
+}
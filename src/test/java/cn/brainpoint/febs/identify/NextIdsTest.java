@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/8/8 14:40
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import cn.brainpoint.febs.identify.clock.ManualIdClock;
+
+/**
+ * A batch of nextIds() reserves its counters at once: the ids are unique and
+ * consecutive, also past the chunk they are rendered in, and a batch larger
+ * than the rest of a second borrows the next seconds.
+ */
+public class NextIdsTest {
+
+    private static final long EPOCH = 1596420000L;
+
+    private ManualIdClock clock;
+
+    @Before
+    public void setUp() {
+        clock = new ManualIdClock(EPOCH);
+    }
+
+    @Test
+    public void batchIsConsecutive() {
+        IdGenerator generator = new IdGenerator("batch", 9);
+        generator.setClock(clock);
+        String[] ids = generator.nextIds(3000);
+        assertEquals(3000, ids.length);
+        int first = BinaryId.parse(ids[0]).getCounter();
+        for (int i = 0; i < ids.length; i++) {
+            BinaryId id = BinaryId.parse(ids[i]);
+            assertEquals(EPOCH, id.getTimestamp());
+            assertEquals(9, id.getMachineId());
+            assertEquals((first + i) & 0x00ffffff, id.getCounter());
+        }
+        // the next id goes on after the batch.
+        assertEquals((first + 3000) & 0x00ffffff, BinaryId.parse(generator.nextId()).getCounter());
+    }
+
+    @Test
+    public void batchBorrowsAheadWhenTheSecondIsUsedUp() {
+        // 256 counters a second.
+        IdGenerator generator = new IdGenerator("borrow", 9, 16, 3);
+        generator.setClock(clock);
+        generator.setOverflowPolicy(OverflowPolicy.BORROW, 8);
+        String[] dst = new String[1000];
+        assertSame(dst, generator.nextIds(dst));
+
+        Set<String> unique = new HashSet<>();
+        long last = EPOCH;
+        for (String id : dst) {
+            assertTrue(id, unique.add(id));
+            BinaryId binary = BinaryId.parse(id);
+            assertTrue(binary.getTimestamp() >= last);
+            assertEquals(3, binary.getCounter() >>> 8);
+            last = binary.getTimestamp();
+        }
+        assertEquals(EPOCH + 3, last);
+    }
+
+    @Test
+    public void emptyAndNegative() {
+        IdGenerator generator = new IdGenerator("empty", 9);
+        assertEquals(0, generator.nextIds(0).length);
+        try {
+            generator.nextIds(-1);
+            fail("a negative count must be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected.
+        }
+    }
+}
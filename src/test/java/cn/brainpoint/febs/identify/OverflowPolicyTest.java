@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/8/8 16:00
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import cn.brainpoint.febs.identify.clock.ManualIdClock;
+
+/**
+ * When the counters of a second are used up, WRAP repeats them, BORROW takes
+ * the next seconds ahead of the clock, and PARK waits for the clock.
+ */
+public class OverflowPolicyTest {
+
+    private static final long EPOCH = 1596420000L;
+    // 256 counters a second.
+    private static final int CAPACITY = 256;
+
+    private ManualIdClock clock;
+    private IdGenerator generator;
+
+    @Before
+    public void setUp() {
+        clock = new ManualIdClock(EPOCH);
+        generator = new IdGenerator("overflow", 5, 16, 1);
+        generator.setClock(clock);
+    }
+
+    @Test
+    public void wrapRepeatsInTheSameSecond() {
+        String first = generator.nextId();
+        for (int i = 1; i < CAPACITY; i++) {
+            generator.nextId();
+        }
+        assertEquals(first, generator.nextId());
+    }
+
+    @Test
+    public void borrowIsUniqueAhead() {
+        generator.setOverflowPolicy(OverflowPolicy.BORROW, 2);
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 3 * CAPACITY; i++) {
+            String id = generator.nextId();
+            assertTrue(id, ids.add(id));
+            assertEquals(EPOCH + i / CAPACITY, BinaryId.parse(id).getTimestamp());
+        }
+        assertEquals(2, generator.getSequencer().getBorrowCount());
+    }
+
+    @Test(timeout = 10000)
+    public void parkWaitsForTheNextSecond() throws InterruptedException {
+        generator.setOverflowPolicy(OverflowPolicy.PARK, 0);
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < CAPACITY; i++) {
+            assertTrue(ids.add(generator.nextId()));
+        }
+        Thread ticker = new Thread(() -> {
+            while (generator.getSequencer().getParkCount() == 0) {
+                Thread.yield();
+            }
+            clock.advance(1);
+        });
+        ticker.start();
+        String id = generator.nextId();
+        ticker.join();
+        assertTrue(ids.add(id));
+        assertEquals(EPOCH + 1, BinaryId.parse(id).getTimestamp());
+        assertTrue(generator.getSequencer().getParkCount() > 0);
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/8/7 15:30
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Test;
+
+import cn.brainpoint.febs.identify.exception.NotReadyException;
+
+/**
+ * A machine id given back by initializeByDatabase() is not used from before it
+ * is released until the new one is taken, while other threads keep asking for
+ * ids, from the ring and inline.
+ */
+public class ReinitializeTest {
+
+    @After
+    public void tearDown() {
+        Identify.disablePreGeneration();
+    }
+
+    @Test
+    public void noIdsWhileTheMachineIdIsReplaced() throws InterruptedException {
+        IdentifyCfg cfg = new IdentifyCfg(SlowMachineIdProvider.TYPE, "slow", null, null);
+        Identify.initializeByDatabase(cfg);
+        Identify.enablePreGeneration(1024);
+        SlowMachineIdProvider.RELEASES.clear();
+
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Queue<String> ids = new ConcurrentLinkedQueue<>();
+        Thread generator = new Thread(() -> {
+            try {
+                while (!stop.get()) {
+                    try {
+                        ids.add(Identify.nextId());
+                    } catch (NotReadyException e) {
+                        // replacing the machine id.
+                    }
+                }
+            } catch (Throwable e) {
+                error.set(e);
+            }
+        });
+        generator.start();
+        for (int i = 0; i < 5; i++) {
+            // the generator must be running when the machine id is replaced.
+            int issued = ids.size();
+            await(() -> ids.size() > issued || null != error.get());
+            Identify.initializeByDatabase(cfg);
+            assertEquals(IdentifyState.READY, Identify.getState());
+        }
+        stop.set(true);
+        generator.join();
+        assertNull(error.get());
+
+        assertEquals(5, SlowMachineIdProvider.RELEASES.size());
+        for (String release : SlowMachineIdProvider.RELEASES) {
+            assertEquals("0:none", release);
+        }
+        Set<String> unique = new HashSet<>(ids);
+        assertEquals(ids.size(), unique.size());
+        assertTrue(ids.size() > 0);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue("timed out", System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+    }
+}
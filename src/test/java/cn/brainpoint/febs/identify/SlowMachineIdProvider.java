@@ -0,0 +1,59 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/8/7 15:10
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntConsumer;
+
+import cn.brainpoint.febs.identify.exception.NotReadyException;
+import cn.brainpoint.febs.identify.spi.MachineIdProvider;
+
+/**
+ * The type "slow": a new machine id per acquire, after a delay like a
+ * database connect. Every release records whether Identify still issued ids.
+ */
+public class SlowMachineIdProvider implements MachineIdProvider {
+
+    static final String TYPE = "slow";
+    /**
+     * per release, the machine id of Identify and whether nextId() worked.
+     */
+    static final List<String> RELEASES = new CopyOnWriteArrayList<>();
+
+    private static int next;
+    private int machineId;
+
+    @Override
+    public boolean supports(IdentifyCfg cfg) {
+        return null != cfg && TYPE.equals(cfg.getType());
+    }
+
+    @Override
+    public int acquire(IdentifyCfg cfg, IntConsumer onChange) {
+        try {
+            Thread.sleep(50);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (SlowMachineIdProvider.class) {
+            machineId = ++next;
+        }
+        return machineId;
+    }
+
+    @Override
+    public void release() {
+        String issued;
+        try {
+            issued = Identify.nextId();
+        } catch (NotReadyException e) {
+            issued = "none";
+        }
+        RELEASES.add(Identify.getMachineId() + ":" + issued);
+    }
+}
@@ -0,0 +1,167 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/8/3 10:20
+ * Desc:
+ */
+package cn.brainpoint.febs.identify;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import cn.brainpoint.febs.identify.clock.ManualIdClock;
+
+/**
+ * The ids of many threads on several leased machine ids are unique, checked
+ * with a bit per counter of each machine id and second.
+ */
+public class UniquenessTest {
+
+    private static final int LEASES = 4;
+    private static final int THREADS = 4;
+    private static final int IDS = 100000;
+    private static final int BATCH = 500;
+    private static final int LENGTH = ObjectId.OBJECT_ID_LENGTH_NOPID * 2;
+    private static final long EPOCH = 1596420000L;
+
+    @Test
+    public void wrapIsUniqueWithinASecond() throws Exception {
+        ManualIdClock clock = new ManualIdClock(EPOCH);
+        IdGenerator[] generators = generators(clock, 0, OverflowPolicy.WRAP);
+        byte[][] ids = new byte[LEASES * THREADS][];
+        run(ids.length, t -> {
+            IdGenerator generator = generators[t / THREADS];
+            byte[] own = new byte[IDS * LENGTH];
+            for (int i = 0, off = 0; i < IDS; i++) {
+                off = generator.nextId(own, off);
+            }
+            ids[t] = own;
+        });
+
+        Seen seen = new Seen();
+        for (byte[] own : ids) {
+            int[] seconds = new int[IDS];
+            int[] machineIds = new int[IDS];
+            int[] counters = new int[IDS];
+            IdDecoder.decode(own, 0, IDS, seconds, machineIds, counters);
+            for (int i = 0; i < IDS; i++) {
+                assertEquals(EPOCH, seconds[i]);
+                seen.add(seconds[i], machineIds[i], counters[i]);
+            }
+        }
+        assertEquals(0, seen.duplicates);
+        assertEquals((long) LEASES * THREADS * IDS, seen.count);
+    }
+
+    @Test
+    public void borrowBatchesAreUniqueAcrossSeconds() throws Exception {
+        ManualIdClock clock = new ManualIdClock(EPOCH);
+        // 4096 counters a second, so that the batches use up seconds and borrow ahead.
+        IdGenerator[] generators = generators(clock, 12, OverflowPolicy.BORROW);
+        for (IdGenerator generator : generators) {
+            // a thread descheduled between reading the clock and reserving lags more than a second behind.
+            generator.setClockRegressionPolicy(ClockRegressionPolicy.HOLD);
+        }
+        String[][] ids = new String[LEASES * THREADS][];
+        Thread ticker = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                clock.advance(1);
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        ticker.start();
+        try {
+            run(ids.length, t -> {
+                IdGenerator generator = generators[t / THREADS];
+                String[] own = new String[IDS / 10];
+                for (int off = 0; off < own.length; off += BATCH) {
+                    System.arraycopy(generator.nextIds(BATCH), 0, own, off, BATCH);
+                }
+                ids[t] = own;
+            });
+        } finally {
+            ticker.interrupt();
+            ticker.join();
+        }
+
+        Seen seen = new Seen();
+        for (String[] own : ids) {
+            int[] seconds = new int[own.length];
+            int[] machineIds = new int[own.length];
+            int[] counters = new int[own.length];
+            IdDecoder.decode(own, 0, own.length, seconds, machineIds, counters);
+            for (int i = 0; i < own.length; i++) {
+                seen.add(seconds[i], machineIds[i], counters[i]);
+            }
+        }
+        assertEquals(0, seen.duplicates);
+        assertEquals((long) LEASES * THREADS * (IDS / 10), seen.count);
+    }
+
+    /**
+     * A generator per lease, machine ids 1..LEASES.
+     */
+    private static IdGenerator[] generators(ManualIdClock clock, int prefixBits, OverflowPolicy policy) {
+        IdGenerator[] generators = new IdGenerator[LEASES];
+        for (int i = 0; i < LEASES; i++) {
+            generators[i] = new IdGenerator("uniqueness-" + i, i + 1, prefixBits, 0);
+            generators[i].setClock(clock);
+            generators[i].setOverflowPolicy(policy, Sequencer.DEFAULT_MAX_BORROW_SECONDS);
+        }
+        return generators;
+    }
+
+    private interface Worker {
+        void run(int thread);
+    }
+
+    private static void run(int threads, Worker worker) throws InterruptedException {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] all = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            all[t] = new Thread(() -> {
+                try {
+                    worker.run(thread);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            all[t].start();
+        }
+        for (Thread thread : all) {
+            thread.join();
+        }
+        assertNull(failure.get());
+    }
+
+    /**
+     * A bit per counter of every machine id and second.
+     */
+    private static final class Seen {
+        private final Map<Long, BitSet> chunks = new HashMap<>();
+        long count;
+        long duplicates;
+
+        void add(int second, int machineId, int counter) {
+            BitSet chunk = chunks.computeIfAbsent((long) machineId << 32 | (second & 0xffffffffL),
+                    key -> new BitSet());
+            if (chunk.get(counter)) {
+                duplicates++;
+            }
+            chunk.set(counter);
+            count++;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/8/8 15:20
+ * Desc:
+ */
+package cn.brainpoint.febs.identify.clock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * A CachedIdClock follows the wall clock second by second, and stays at the
+ * last second once closed.
+ */
+public class CachedIdClockTest {
+
+    @Test(timeout = 10000)
+    public void followsTheWallClock() throws InterruptedException {
+        try (CachedIdClock clock = CachedIdClock.start(10)) {
+            long begin = clock.currentSeconds();
+            assertTrue(Math.abs(System.currentTimeMillis() / 1000 - begin) <= 1);
+            while (clock.currentSeconds() == begin) {
+                Thread.sleep(10);
+            }
+            long now = clock.currentSeconds();
+            assertTrue(now > begin && now <= System.currentTimeMillis() / 1000);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void closedClockStops() throws InterruptedException {
+        CachedIdClock clock = CachedIdClock.start(10);
+        clock.close();
+        // the ticker may be in the middle of a refresh.
+        Thread.sleep(50);
+        long last = clock.currentSeconds();
+        Thread.sleep(1100);
+        assertEquals(last, clock.currentSeconds());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tickIsBounded() {
+        CachedIdClock.start(0);
+    }
+
+    @Test
+    public void manualClockMovesBothWays() {
+        ManualIdClock clock = new ManualIdClock(100);
+        assertEquals(103, clock.advance(3));
+        assertEquals(101, clock.advance(-2));
+        clock.set(7);
+        assertEquals(7, clock.currentSeconds());
+    }
+}
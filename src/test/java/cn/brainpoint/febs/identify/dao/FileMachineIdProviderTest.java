@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/8/8 17:40
+ * Desc:
+ */
+package cn.brainpoint.febs.identify.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import cn.brainpoint.febs.identify.Identify;
+import cn.brainpoint.febs.identify.IdentifyCfg;
+import cn.brainpoint.febs.identify.IdentifyState;
+import cn.brainpoint.febs.identify.exception.DBException;
+
+/**
+ * The processes of a host own distinct machine ids by file locks, and a
+ * released machine id is taken again in a later second only.
+ */
+public class FileMachineIdProviderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private IdentifyCfg cfg(int slotCount) {
+        IdentifyCfg cfg = new IdentifyCfg("file", folder.getRoot().getPath(), null, null);
+        cfg.setSlotCount(slotCount);
+        return cfg;
+    }
+
+    @Test
+    public void locksAreDistinct() {
+        FileMachineIdProvider first = new FileMachineIdProvider();
+        FileMachineIdProvider second = new FileMachineIdProvider();
+        try {
+            assertEquals(1, first.acquire(cfg(2), slot -> {
+            }));
+            assertEquals(2, second.acquire(cfg(2), slot -> {
+            }));
+            try {
+                new FileMachineIdProvider().acquire(cfg(2), slot -> {
+                });
+                fail("all machine ids are locked");
+            } catch (DBException e) {
+                // expected.
+            }
+        } finally {
+            first.release();
+            second.release();
+        }
+    }
+
+    @Test
+    public void releasedIdIsTakenInALaterSecond() throws IOException {
+        FileMachineIdProvider provider = new FileMachineIdProvider();
+        assertEquals(1, provider.acquire(cfg(1), slot -> {
+        }));
+        provider.release();
+        File lock = new File(folder.getRoot(), "machine-1.lock");
+        long released = Long.parseLong(new String(Files.readAllBytes(lock.toPath()), StandardCharsets.US_ASCII));
+
+        assertEquals(1, provider.acquire(cfg(1), slot -> {
+        }));
+        assertTrue(System.currentTimeMillis() / 1000 > released / 1000);
+        provider.release();
+    }
+
+    @Test
+    public void initializeThroughTheProvider() {
+        Identify.initializeByDatabase(cfg(4));
+        assertEquals(IdentifyState.READY, Identify.getState());
+        assertEquals(1, Identify.getMachineId());
+        assertEquals(1, Identify.decode(Identify.nextId()).getMachineId());
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/8/8 10:30
+ * Desc:
+ */
+package cn.brainpoint.febs.identify.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import cn.brainpoint.febs.identify.Identify;
+import cn.brainpoint.febs.identify.IdentifyCfg;
+import cn.brainpoint.febs.identify.IdentifyState;
+
+/**
+ * Machine ids in an in-memory H2 database by plain JDBC, and the provider
+ * chosen by type.
+ */
+public class JdbcMachineIdProviderTest {
+
+    private static IdentifyCfg h2(String name, int leaseSeconds) {
+        IdentifyCfg cfg = new IdentifyCfg("h2", "mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        cfg.setLeaseSeconds(leaseSeconds);
+        return cfg;
+    }
+
+    @Test
+    public void providerByType() {
+        JdbcMachineIdProvider jdbc = new JdbcMachineIdProvider();
+        MysqlMachineIdProvider mybatis = new MysqlMachineIdProvider();
+        IdentifyCfg mysql = new IdentifyCfg("mysql", "localhost:3306/ids", "sa", "");
+        assertTrue(mybatis.supports(mysql));
+        assertFalse(jdbc.supports(mysql));
+
+        mysql.setPlainJdbc(true);
+        assertFalse(mybatis.supports(mysql));
+        assertTrue(jdbc.supports(mysql));
+
+        assertTrue(jdbc.supports(h2("type", 0)));
+        assertFalse(mybatis.supports(h2("type", 0)));
+        assertTrue(mybatis.supports(null));
+        assertFalse(jdbc.supports(null));
+    }
+
+    @Test
+    public void newIdsFromAutoIncrement() {
+        JdbcMachineIdProvider provider = new JdbcMachineIdProvider();
+        assertEquals(1, provider.acquire(h2("increment", 0), slot -> {
+        }));
+        assertEquals(2, provider.acquire(h2("increment", 0), slot -> {
+        }));
+    }
+
+    @Test
+    public void leasedSlotsAreDistinct() {
+        JdbcMachineIdProvider first = new JdbcMachineIdProvider();
+        JdbcMachineIdProvider second = new JdbcMachineIdProvider();
+        try {
+            int a = first.acquire(h2("lease", 60), slot -> {
+            });
+            int b = second.acquire(h2("lease", 60), slot -> {
+            });
+            assertEquals(1, a);
+            assertNotEquals(a, b);
+        } finally {
+            first.release();
+            second.release();
+        }
+    }
+
+    @Test
+    public void initializeThroughTheProvider() {
+        Identify.initializeByDatabase(h2("identify", 60));
+        assertEquals(IdentifyState.READY, Identify.getState());
+        assertEquals(1, Identify.getMachineId());
+        assertEquals(1, Identify.decode(Identify.nextId()).getMachineId());
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/8/7 10:40
+ * Desc:
+ */
+package cn.brainpoint.febs.identify.spi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * The listener of a lease is told 0 before the slot may be used by another
+ * process: on close, a lost slot, or a renewal that fails until the expiry. A
+ * lease resumed from the state file is used from the second after it stopped.
+ */
+public class MachineIdLeaseTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final MemoryLeaseStore store = new MemoryLeaseStore();
+    private final List<Integer> changes = new CopyOnWriteArrayList<>();
+    private final List<Long> changedAt = new CopyOnWriteArrayList<>();
+    private MachineIdLease lease;
+
+    @After
+    public void tearDown() {
+        store.down = false;
+        if (null != lease) {
+            lease.close();
+        }
+    }
+
+    private MachineIdLease start(int leaseSeconds) {
+        lease = MachineIdLease.start(store, leaseSeconds, 4, null, "memory", slot -> {
+            changedAt.add(System.currentTimeMillis());
+            changes.add(slot);
+        });
+        return lease;
+    }
+
+    @Test
+    public void closeWithdrawsTheSlot() {
+        start(60);
+        assertEquals(1, lease.getSlot());
+        assertEquals(lease.getOwner(), store.ownerOf(1));
+        lease.close();
+        lease = null;
+        assertEquals(Arrays.asList(0), changes);
+        assertNull(store.ownerOf(1));
+    }
+
+    @Test
+    public void lostSlotIsLeasedAgain() {
+        start(1);
+        store.steal(1);
+        await(() -> changes.size() == 2);
+        assertEquals(Arrays.asList(0, 2), changes);
+        assertEquals(2, lease.getSlot());
+        assertFalse(lease.isSuspended());
+    }
+
+    @Test
+    public void unreachableStoreSuspendsBeforeTheExpiry() {
+        start(1);
+        long expire = lease.getExpireMillis();
+        store.down = true;
+        await(() -> changes.size() == 1);
+        assertEquals(Arrays.asList(0), changes);
+        assertTrue(lease.isSuspended());
+        // a renewal period (333 ms) ahead of the expiry.
+        assertTrue(changedAt.get(0) < expire - 200);
+
+        store.down = false;
+        await(() -> changes.size() == 2);
+        assertEquals(Arrays.asList(0, 1), changes);
+        assertFalse(lease.isSuspended());
+    }
+
+    @Test
+    public void resumeWaitsPastTheStop() throws IOException {
+        String path = new File(folder.getRoot(), "machine-id.properties").getPath();
+        MachineIdLease first = MachineIdLease.start(store, 60, 4, path, "memory", changes::add);
+        first.stop();
+        MachineIdStateFile.State state = new MachineIdStateFile(path, "memory").load();
+        assertEquals(first.getSlot(), state.getSlot());
+        assertTrue(state.getReleasedMillis() > 0);
+
+        lease = MachineIdLease.start(store, 60, 4, path, "memory", changes::add);
+        assertTrue(System.currentTimeMillis() / 1000 > state.getReleasedMillis() / 1000);
+        assertEquals(first.getSlot(), lease.getSlot());
+        assertEquals(first.getOwner(), lease.getOwner());
+        assertEquals(0, new MachineIdStateFile(path, "memory").load().getReleasedMillis());
+    }
+
+    static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue("timed out", System.currentTimeMillis() < deadline);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2020 Copyright bp All Rights Reserved.
+ * Author: lipengxiang
+ * Date: 2020-2020/8/7 10:20
+ * Desc:
+ */
+package cn.brainpoint.febs.identify.spi;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import cn.brainpoint.febs.identify.exception.DBException;
+
+/**
+ * Slots in memory, that can be taken by another owner or go down.
+ */
+final class MemoryLeaseStore implements MachineIdLeaseStore {
+
+    private final Map<Integer, String> owners = new HashMap<>();
+    private final Map<Integer, Long> expires = new HashMap<>();
+    /**
+     * every call fails while it is down.
+     */
+    volatile boolean down;
+
+    @Override
+    public synchronized int acquire(String owner, int leaseSeconds, int slotCount) {
+        check();
+        long now = System.currentTimeMillis();
+        for (int slot = 1; slot <= slotCount; slot++) {
+            if (!owners.containsKey(slot) || expires.get(slot) < now) {
+                owners.put(slot, owner);
+                expires.put(slot, now + leaseSeconds * 1000L);
+                return slot;
+            }
+        }
+        throw new DBException("No free machine id");
+    }
+
+    @Override
+    public synchronized boolean renew(int slot, String owner, int leaseSeconds) {
+        check();
+        if (!owner.equals(owners.get(slot))) {
+            return false;
+        }
+        expires.put(slot, System.currentTimeMillis() + leaseSeconds * 1000L);
+        return true;
+    }
+
+    @Override
+    public synchronized void release(int slot, String owner) {
+        check();
+        if (owner.equals(owners.get(slot))) {
+            owners.remove(slot);
+            expires.remove(slot);
+        }
+    }
+
+    /**
+     * Let another process take the slot.
+     */
+    synchronized void steal(int slot) {
+        owners.put(slot, "another");
+        expires.put(slot, Long.MAX_VALUE);
+    }
+
+    synchronized String ownerOf(int slot) {
+        return owners.get(slot);
+    }
+
+    private void check() {
+        if (down) {
+            throw new DBException("the store is down");
+        }
+    }
+}